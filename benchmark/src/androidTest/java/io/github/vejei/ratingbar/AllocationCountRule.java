@@ -0,0 +1,109 @@
+package io.github.vejei.ratingbar;
+
+import android.os.Bundle;
+import android.os.Debug;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Counts the allocations of one iteration of a benchmark, which the timing results of
+ * {@link androidx.benchmark.junit4.BenchmarkRule} don't include. The iteration is run apart
+ * from the timed loop, on the calling thread, and the counts of every test of the run are
+ * written to {@value #FILE_NAME}, next to the JSON results of the benchmarks.
+ *
+ * <p>The counts come from the allocation counters of {@link Debug}, deprecated since API 23.
+ * They are best-effort, compare them between runs on the same device and OS version only.</p>
+ */
+public final class AllocationCountRule implements TestRule {
+    private static final String FILE_NAME = "allocations.json";
+    private static final int WARMUP_ITERATIONS = 10;
+    private static final int ITERATIONS = 100;
+
+    private static final JSONArray results = new JSONArray();
+
+    private boolean measured;
+    private float allocationCount;
+    private float allocatedBytes;
+
+    /**
+     * Runs the iteration until its lazily created objects exist, then counts the allocations
+     * it makes on average.
+     */
+    @SuppressWarnings("deprecation")
+    public void measure(Runnable iteration) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            iteration.run();
+        }
+
+        Debug.resetThreadAllocCount();
+        Debug.resetThreadAllocSize();
+        Debug.startAllocCounting();
+        try {
+            for (int i = 0; i < ITERATIONS; i++) {
+                iteration.run();
+            }
+        } finally {
+            Debug.stopAllocCounting();
+        }
+        allocationCount = (float) Debug.getThreadAllocCount() / ITERATIONS;
+        allocatedBytes = (float) Debug.getThreadAllocSize() / ITERATIONS;
+        measured = true;
+    }
+
+    @Override
+    public Statement apply(final Statement base, final Description description) {
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                measured = false;
+                base.evaluate();
+                if (measured) {
+                    report(description);
+                }
+            }
+        };
+    }
+
+    private void report(Description description) throws JSONException, IOException {
+        JSONObject result = new JSONObject()
+                .put("className", description.getClassName())
+                .put("name", description.getMethodName())
+                .put("iterations", ITERATIONS)
+                .put("allocationCount", allocationCount)
+                .put("allocatedBytes", allocatedBytes);
+
+        String json;
+        synchronized (results) {
+            results.put(result);
+            json = new JSONObject().put("benchmarks", results).toString(2);
+        }
+        try (Writer writer = new FileWriter(new File(outputDirectory(), FILE_NAME))) {
+            writer.write(json);
+        }
+    }
+
+    /**
+     * Returns the directory the Gradle plugin pulls the benchmark results from.
+     */
+    private static File outputDirectory() {
+        Bundle arguments = InstrumentationRegistry.getArguments();
+        String path = arguments.getString("additionalTestOutputDir");
+        if (path != null) {
+            return new File(path);
+        }
+        return InstrumentationRegistry.getInstrumentation().getTargetContext()
+                .getExternalCacheDir();
+    }
+}
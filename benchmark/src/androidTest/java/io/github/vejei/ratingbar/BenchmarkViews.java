@@ -0,0 +1,50 @@
+package io.github.vejei.ratingbar;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+final class BenchmarkViews {
+
+    private BenchmarkViews() {}
+
+    static Context themedContext() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        return new ContextThemeWrapper(context, androidx.appcompat.R.style.Theme_AppCompat_Light);
+    }
+
+    static void runOnMainSync(Runnable runnable) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(runnable);
+    }
+
+    /**
+     * Counts the allocations of one iteration, then runs the iteration in the timed loop of the
+     * benchmark, on the calling thread.
+     */
+    static void run(BenchmarkRule benchmarkRule, AllocationCountRule allocationCountRule,
+                    Runnable iteration) {
+        allocationCountRule.measure(iteration);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            iteration.run();
+        }
+    }
+
+    static void measureAndLayout(View view) {
+        int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        view.measure(spec, spec);
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+    }
+
+    static Canvas softwareCanvasFor(View view) {
+        Bitmap bitmap = Bitmap.createBitmap(Math.max(view.getWidth(), 1),
+                Math.max(view.getHeight(), 1), Bitmap.Config.ARGB_8888);
+        return new Canvas(bitmap);
+    }
+}
@@ -0,0 +1,134 @@
+package io.github.vejei.ratingbar;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.View;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Measures the time from creating a view to its first draw: construction, measure, layout and
+ * a draw into a software canvas, either resolving the default style from the theme or using
+ * the precompiled defaults. The time the frame then takes to be rendered is not included.
+ *
+ * <p>The warm tests keep the process-wide star caches filled after the first iteration, the
+ * cost every view of a screen pays after the first ones. The cold tests clear the caches before
+ * every iteration, outside of the timing, the cost the first views of a process pay. Classes
+ * are loaded and the theme is resolved in both cases.</p>
+ */
+public class FirstFrameBenchmark {
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+    @Rule
+    public AllocationCountRule allocationCountRule = new AllocationCountRule();
+
+    private Context context;
+    private Canvas canvas;
+
+    @Before
+    public void setUp() {
+        BenchmarkViews.runOnMainSync(() -> {
+            context = BenchmarkViews.themedContext();
+            canvas = new Canvas(Bitmap.createBitmap(1080, 480, Bitmap.Config.ARGB_8888));
+        });
+    }
+
+    private void drawFirstFrame(View view) {
+        BenchmarkViews.measureAndLayout(view);
+        view.draw(canvas);
+    }
+
+    private void drawRatingBarFromTheme() {
+        drawFirstFrame(new RatingBar(context));
+    }
+
+    private void drawRatingBarFromPrecompiledDefaults() {
+        RatingBarSpec spec = RatingBarSpec.Builder.withPrecompiledDefaults(context).build();
+        drawFirstFrame(new RatingBar(context, spec));
+    }
+
+    private void drawStatisticsViewFromTheme() {
+        drawFirstFrame(new StatisticsView(context));
+    }
+
+    private void drawStatisticsViewFromPrecompiledDefaults() {
+        StatisticsSpec spec = StatisticsSpec.Builder.withPrecompiledDefaults(context).build();
+        drawFirstFrame(new StatisticsView(context, spec));
+    }
+
+    private static void clearStarCaches() {
+        StarDrawable.StarAppearance.clearCache();
+        StarGeometry.clearCache();
+    }
+
+    /**
+     * Runs the iteration with the star caches cleared before each run, the clearing isn't
+     * timed.
+     */
+    private void runCold(Runnable iteration) {
+        BenchmarkViews.runOnMainSync(() -> {
+            allocationCountRule.measure(() -> {
+                clearStarCaches();
+                iteration.run();
+            });
+            BenchmarkState state = benchmarkRule.getState();
+            while (state.keepRunning()) {
+                state.pauseTiming();
+                clearStarCaches();
+                state.resumeTiming();
+                iteration.run();
+            }
+        });
+    }
+
+    private void runWarm(Runnable iteration) {
+        BenchmarkViews.runOnMainSync(() ->
+                BenchmarkViews.run(benchmarkRule, allocationCountRule, iteration));
+    }
+
+    @Test
+    public void ratingBarFromTheme() {
+        runWarm(this::drawRatingBarFromTheme);
+    }
+
+    @Test
+    public void ratingBarFromThemeCold() {
+        runCold(this::drawRatingBarFromTheme);
+    }
+
+    @Test
+    public void ratingBarFromPrecompiledDefaults() {
+        runWarm(this::drawRatingBarFromPrecompiledDefaults);
+    }
+
+    @Test
+    public void ratingBarFromPrecompiledDefaultsCold() {
+        runCold(this::drawRatingBarFromPrecompiledDefaults);
+    }
+
+    @Test
+    public void statisticsViewFromTheme() {
+        runWarm(this::drawStatisticsViewFromTheme);
+    }
+
+    @Test
+    public void statisticsViewFromThemeCold() {
+        runCold(this::drawStatisticsViewFromTheme);
+    }
+
+    @Test
+    public void statisticsViewFromPrecompiledDefaults() {
+        runWarm(this::drawStatisticsViewFromPrecompiledDefaults);
+    }
+
+    @Test
+    public void statisticsViewFromPrecompiledDefaultsCold() {
+        runCold(this::drawStatisticsViewFromPrecompiledDefaults);
+    }
+}
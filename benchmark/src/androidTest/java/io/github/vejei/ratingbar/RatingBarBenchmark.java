@@ -0,0 +1,122 @@
+package io.github.vejei.ratingbar;
+
+import android.graphics.Canvas;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.benchmark.junit4.BenchmarkRule;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@RunWith(Parameterized.class)
+public class RatingBarBenchmark {
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+    @Rule
+    public AllocationCountRule allocationCountRule = new AllocationCountRule();
+
+    @Parameterized.Parameter(0)
+    public int starCount;
+    @Parameterized.Parameter(1)
+    public float stepSize;
+    @Parameterized.Parameter(2)
+    public int renderMode;
+    @Parameterized.Parameter(3)
+    public int fillMode;
+
+    private RatingBar ratingBar;
+    private Canvas canvas;
+    private MotionEvent downEvent;
+    private MotionEvent upEvent;
+    private int tapCount;
+
+    @Parameterized.Parameters(name = "starCount={0},stepSize={1},renderMode={2},fillMode={3}")
+    public static Collection<Object[]> parameters() {
+        int[] starCounts = {5, 10, 20};
+        float[] stepSizes = {0.01f, 0.1f, 0.5f, 1f};
+        int[] renderModes = {RatingBar.RENDER_MODE_DIRECT, RatingBar.RENDER_MODE_BITMAP_CACHE};
+        int[] fillModes = {RatingBar.FILL_MODE_CLIP, RatingBar.FILL_MODE_SHADER};
+        List<Object[]> parameters = new ArrayList<>();
+        for (int starCount : starCounts) {
+            for (float stepSize : stepSizes) {
+                for (int renderMode : renderModes) {
+                    for (int fillMode : fillModes) {
+                        parameters.add(new Object[] {starCount, stepSize, renderMode, fillMode});
+                    }
+                }
+            }
+        }
+        return parameters;
+    }
+
+    @Before
+    public void setUp() {
+        BenchmarkViews.runOnMainSync(() -> {
+            ratingBar = new RatingBar(BenchmarkViews.themedContext());
+            ratingBar.setStarCount(starCount);
+            ratingBar.setStepSize(stepSize);
+            ratingBar.setRenderMode(renderMode);
+            ratingBar.setFillMode(fillMode);
+            ratingBar.setRatingStarCount(starCount / 2f);
+            BenchmarkViews.measureAndLayout(ratingBar);
+            canvas = BenchmarkViews.softwareCanvasFor(ratingBar);
+
+            long now = SystemClock.uptimeMillis();
+            downEvent = MotionEvent.obtain(now, now, MotionEvent.ACTION_DOWN, 0, 0, 0);
+            upEvent = MotionEvent.obtain(now, now, MotionEvent.ACTION_UP, 0, 0, 0);
+        });
+    }
+
+    @After
+    public void tearDown() {
+        downEvent.recycle();
+        upEvent.recycle();
+    }
+
+    @Test
+    public void draw() {
+        BenchmarkViews.runOnMainSync(() -> {
+            BenchmarkViews.run(benchmarkRule, allocationCountRule, () -> ratingBar.draw(canvas));
+        });
+    }
+
+    @Test
+    public void measure() {
+        BenchmarkViews.runOnMainSync(() -> {
+            int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+            BenchmarkViews.run(benchmarkRule, allocationCountRule, () -> {
+                ratingBar.forceLayout();
+                ratingBar.measure(spec, spec);
+            });
+        });
+    }
+
+    /**
+     * Taps alternately near the start and near the end of the stars, so that every tap changes
+     * the rating and has to be mapped to a new step.
+     */
+    @Test
+    public void touchToRating() {
+        BenchmarkViews.runOnMainSync(() -> {
+            float nearStart = ratingBar.getWidth() * 0.13f;
+            float nearEnd = ratingBar.getWidth() * 0.87f;
+            BenchmarkViews.run(benchmarkRule, allocationCountRule, () -> {
+                float x = (tapCount++ % 2 == 0) ? nearStart : nearEnd;
+                downEvent.setLocation(x, 0);
+                upEvent.setLocation(x, 0);
+                ratingBar.onTouchEvent(downEvent);
+                ratingBar.onTouchEvent(upEvent);
+            });
+        });
+    }
+}
@@ -0,0 +1,105 @@
+package io.github.vejei.ratingbar;
+
+import android.os.SystemClock;
+import android.view.MotionEvent;
+
+import androidx.benchmark.junit4.BenchmarkRule;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Measures the main thread cost of whole drag gestures, from the down event to the up event,
+ * with and without predicted touches. The samples are 8 ms apart, like a 120 Hz touch screen.
+ */
+@RunWith(Parameterized.class)
+public class RatingBarGestureBenchmark {
+    private static final int MOVE_COUNT = 20;
+    private static final long SAMPLE_INTERVAL_MILLIS = 8;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+    @Rule
+    public AllocationCountRule allocationCountRule = new AllocationCountRule();
+
+    @Parameterized.Parameter(0)
+    public boolean predictedTouchEnabled;
+
+    private RatingBar ratingBar;
+    private MotionEvent[] slowDrag;
+    private MotionEvent[] fling;
+
+    @Parameterized.Parameters(name = "predictedTouchEnabled={0}")
+    public static Collection<Object[]> parameters() {
+        return Arrays.asList(new Object[][] {{false}, {true}});
+    }
+
+    @Before
+    public void setUp() {
+        BenchmarkViews.runOnMainSync(() -> {
+            ratingBar = new RatingBar(BenchmarkViews.themedContext());
+            ratingBar.setStepSize(0.1f);
+            ratingBar.setPredictedTouchEnabled(predictedTouchEnabled);
+            BenchmarkViews.measureAndLayout(ratingBar);
+
+            // The slow drag stays below the fling velocity, the fling covers the same distance
+            // in a fraction of the time.
+            slowDrag = createDrag(0.1f, 0.9f, SAMPLE_INTERVAL_MILLIS * 8);
+            fling = createDrag(0.1f, 0.5f, SAMPLE_INTERVAL_MILLIS);
+        });
+    }
+
+    @After
+    public void tearDown() {
+        for (MotionEvent event : slowDrag) {
+            event.recycle();
+        }
+        for (MotionEvent event : fling) {
+            event.recycle();
+        }
+    }
+
+    private MotionEvent[] createDrag(float fromFraction, float toFraction, long intervalMillis) {
+        MotionEvent[] events = new MotionEvent[MOVE_COUNT + 2];
+        float fromX = ratingBar.getWidth() * fromFraction;
+        float toX = ratingBar.getWidth() * toFraction;
+        long downTime = SystemClock.uptimeMillis();
+
+        events[0] = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, fromX, 0, 0);
+        for (int i = 1; i <= MOVE_COUNT; i++) {
+            float x = fromX + (toX - fromX) * i / MOVE_COUNT;
+            events[i] = MotionEvent.obtain(downTime, downTime + i * intervalMillis,
+                    MotionEvent.ACTION_MOVE, x, 0, 0);
+        }
+        events[MOVE_COUNT + 1] = MotionEvent.obtain(downTime,
+                downTime + MOVE_COUNT * intervalMillis, MotionEvent.ACTION_UP, toX, 0, 0);
+        return events;
+    }
+
+    private void dispatch(MotionEvent[] events) {
+        for (MotionEvent event : events) {
+            ratingBar.onTouchEvent(event);
+        }
+    }
+
+    @Test
+    public void slowDrag() {
+        BenchmarkViews.runOnMainSync(() -> {
+            BenchmarkViews.run(benchmarkRule, allocationCountRule, () -> dispatch(slowDrag));
+        });
+    }
+
+    @Test
+    public void fling() {
+        BenchmarkViews.runOnMainSync(() -> {
+            BenchmarkViews.run(benchmarkRule, allocationCountRule, () -> dispatch(fling));
+        });
+    }
+}
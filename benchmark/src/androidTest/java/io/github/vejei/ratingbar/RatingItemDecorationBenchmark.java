@@ -0,0 +1,110 @@
+package io.github.vejei.ratingbar;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class RatingItemDecorationBenchmark {
+    private static final int ITEM_COUNT = 10000;
+    private static final int ROW_HEIGHT = 96;
+    private static final int LIST_WIDTH = 1080;
+    private static final int LIST_HEIGHT = 1920;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+    @Rule
+    public AllocationCountRule allocationCountRule = new AllocationCountRule();
+
+    private RecyclerView recyclerView;
+    private RatingItemDecoration decoration;
+    private final RatingBar[] ratingBars = new RatingBar[LIST_HEIGHT / ROW_HEIGHT];
+    private final RecyclerView.State state = new RecyclerView.State();
+    private Canvas canvas;
+
+    @Before
+    public void setUp() {
+        float[] ratings = new float[ITEM_COUNT];
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            ratings[i] = (i % 11) * 0.5f;
+        }
+
+        BenchmarkViews.runOnMainSync(() -> {
+            Context context = BenchmarkViews.themedContext();
+            decoration = new RatingItemDecoration(context,
+                    new RatingBarSpec.Builder(context).build());
+            decoration.setRatings(ratings);
+
+            recyclerView = new RecyclerView(context);
+            recyclerView.setLayoutManager(new LinearLayoutManager(context));
+            recyclerView.setAdapter(new RowAdapter());
+            recyclerView.addItemDecoration(decoration);
+            recyclerView.measure(
+                    View.MeasureSpec.makeMeasureSpec(LIST_WIDTH, View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(LIST_HEIGHT, View.MeasureSpec.EXACTLY));
+            recyclerView.layout(0, 0, LIST_WIDTH, LIST_HEIGHT);
+            canvas = BenchmarkViews.softwareCanvasFor(recyclerView);
+
+            // The same visible rows, drawn by one rating bar each.
+            for (int i = 0; i < ratingBars.length; i++) {
+                ratingBars[i] = new RatingBar(context);
+                ratingBars[i].setMode(RatingBar.MODE_INDICATIVE);
+                ratingBars[i].setRatingStarCount(ratings[i]);
+                BenchmarkViews.measureAndLayout(ratingBars[i]);
+            }
+        });
+    }
+
+    @Test
+    public void drawVisibleRowsWithDecoration() {
+        BenchmarkViews.runOnMainSync(() -> {
+            BenchmarkViews.run(benchmarkRule, allocationCountRule,
+                    () -> decoration.onDrawOver(canvas, recyclerView, this.state));
+        });
+    }
+
+    @Test
+    public void drawVisibleRowsWithRatingBars() {
+        BenchmarkViews.runOnMainSync(() -> {
+            BenchmarkViews.run(benchmarkRule, allocationCountRule, () -> {
+                for (RatingBar ratingBar : ratingBars) {
+                    ratingBar.draw(canvas);
+                }
+            });
+        });
+    }
+
+    private static final class RowAdapter extends RecyclerView.Adapter<RowHolder> {
+        @NonNull
+        @Override
+        public RowHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View row = new View(parent.getContext());
+            row.setLayoutParams(new RecyclerView.LayoutParams(
+                    ViewGroup.LayoutParams.MATCH_PARENT, ROW_HEIGHT));
+            return new RowHolder(row);
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RowHolder holder, int position) {}
+
+        @Override
+        public int getItemCount() {
+            return ITEM_COUNT;
+        }
+    }
+
+    private static final class RowHolder extends RecyclerView.ViewHolder {
+        RowHolder(View itemView) {
+            super(itemView);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.vejei.ratingbar;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+import androidx.benchmark.junit4.BenchmarkRule;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+@RunWith(Parameterized.class)
+public class RatingRendererBenchmark {
+    private static final int RATING_COUNT = 1000;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+    @Rule
+    public AllocationCountRule allocationCountRule = new AllocationCountRule();
+
+    @Parameterized.Parameter(0)
+    public int renderMode;
+
+    private RatingRenderer renderer;
+    private Canvas canvas;
+    private final float[] ratings = new float[RATING_COUNT];
+
+    @Parameterized.Parameters(name = "renderMode={0}")
+    public static Collection<Object[]> parameters() {
+        return Arrays.asList(new Object[][] {
+                {RatingBar.RENDER_MODE_DIRECT}, {RatingBar.RENDER_MODE_BITMAP_CACHE},
+        });
+    }
+
+    @Before
+    public void setUp() {
+        RatingBarSpec spec = new RatingBarSpec.Builder(BenchmarkViews.themedContext())
+                .setRenderMode(renderMode)
+                .build();
+        renderer = new RatingRenderer(BenchmarkViews.themedContext(), spec);
+        canvas = new Canvas(Bitmap.createBitmap(Math.max(renderer.getWidth(), 1),
+                Math.max(renderer.getHeight(), 1), Bitmap.Config.ARGB_8888));
+        for (int i = 0; i < RATING_COUNT; i++) {
+            ratings[i] = (i % 11) * 0.5f;
+        }
+    }
+
+    @Test
+    public void drawThousandRatings() {
+        BenchmarkViews.run(benchmarkRule, allocationCountRule, () -> {
+            for (int i = 0; i < RATING_COUNT; i++) {
+                renderer.draw(canvas, 0, 0, ratings[i]);
+            }
+        });
+    }
+}
@@ -0,0 +1,69 @@
+package io.github.vejei.ratingbar;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+import androidx.benchmark.junit4.BenchmarkRule;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+@RunWith(Parameterized.class)
+public class StarDrawableBenchmark {
+    // A rounded square in a 24 units viewport.
+    private static final String PATH_DATA = "M6,2h12a4,4 0,0 1,4 4v12a4,4 0,0 1,-4 4H6"
+            + "a4,4 0,0 1,-4 -4V6a4,4 0,0 1,4 -4z";
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+    @Rule
+    public AllocationCountRule allocationCountRule = new AllocationCountRule();
+
+    @Parameterized.Parameter(0)
+    public int size;
+    @Parameterized.Parameter(1)
+    public boolean hollowed;
+    @Parameterized.Parameter(2)
+    public boolean cornerRounded;
+    @Parameterized.Parameter(3)
+    public @RatingBar.StarShape int shape;
+
+    private StarDrawable starDrawable;
+    private Canvas canvas;
+
+    @Parameterized.Parameters(name = "size={0},hollowed={1},cornerRounded={2},shape={3}")
+    public static Collection<Object[]> parameters() {
+        return Arrays.asList(new Object[][] {
+                {24, false, false, RatingBar.SHAPE_STAR}, {24, true, false, RatingBar.SHAPE_STAR},
+                {24, false, true, RatingBar.SHAPE_STAR}, {96, false, false, RatingBar.SHAPE_STAR},
+                {96, true, false, RatingBar.SHAPE_STAR}, {96, false, true, RatingBar.SHAPE_STAR},
+                {24, false, false, RatingBar.SHAPE_HEART}, {96, true, false, RatingBar.SHAPE_HEART},
+                {24, false, false, RatingBar.SHAPE_PATH}, {96, true, false, RatingBar.SHAPE_PATH},
+        });
+    }
+
+    @Before
+    public void setUp() {
+        StarDrawable.StarAppearance appearance = new StarDrawable.StarAppearance(shape,
+                StarDrawable.StarAppearance.DEFAULT_POINT_COUNT,
+                (shape == RatingBar.SHAPE_PATH) ? PATH_DATA : null, RatingBar.SOMATOTYPE_THIN,
+                hollowed, Math.max(size / 24, 1), cornerRounded,
+                Math.max(size / 12, 1));
+
+        starDrawable = new StarDrawable(size);
+        starDrawable.applyAppearance(appearance);
+        starDrawable.setBounds(0, 0, size, size);
+        canvas = new Canvas(Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    public void draw() {
+        BenchmarkViews.run(benchmarkRule, allocationCountRule, () -> starDrawable.draw(canvas));
+    }
+}
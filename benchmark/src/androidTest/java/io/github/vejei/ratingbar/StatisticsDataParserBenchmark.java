@@ -0,0 +1,53 @@
+package io.github.vejei.ratingbar;
+
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the parser of the {@code statistics_data} attribute with the regex and split based
+ * implementation it replaced.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StatisticsDataParserBenchmark {
+    private static final String DATA = "0.52, 0.25, 0.13, 0.06, 0.04";
+    private static final Pattern LEGACY_DATA_PATTERN =
+            Pattern.compile("^[(\\d+(?:\\.\\d+)?),\\s]+$");
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+    @Rule
+    public AllocationCountRule allocationCountRule = new AllocationCountRule();
+
+    @Test
+    public void parse() {
+        BenchmarkViews.run(benchmarkRule, allocationCountRule,
+                () -> StatisticsDataParser.parse(DATA));
+    }
+
+    @Test
+    public void parseLegacy() {
+        BenchmarkViews.run(benchmarkRule, allocationCountRule, () -> parseLegacy(DATA));
+    }
+
+    private static float[] parseLegacy(String statisticsDataText) {
+        Matcher matcher = LEGACY_DATA_PATTERN.matcher(statisticsDataText);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("The statistics data text must match the pattern: "
+                    + "a, b, c, d, e");
+        }
+        statisticsDataText = statisticsDataText.replace("\\s+", "");
+        String[] numberText = statisticsDataText.split(",");
+        float[] resultData = new float[numberText.length];
+        for (int i = 0; i < numberText.length; i++) {
+            resultData[i] = Float.parseFloat(numberText[i]);
+        }
+        return resultData;
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.vejei.ratingbar;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+import androidx.benchmark.junit4.BenchmarkRule;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+@RunWith(Parameterized.class)
+public class StatisticsRendererBenchmark {
+    private static final int COLUMN_COUNT = 4;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+    @Rule
+    public AllocationCountRule allocationCountRule = new AllocationCountRule();
+
+    @Parameterized.Parameter
+    public int histogramCount;
+
+    private StatisticsRenderer renderer;
+    private Canvas canvas;
+    private float[] data;
+
+    @Parameterized.Parameters(name = "histogramCount={0}")
+    public static Collection<Object[]> parameters() {
+        return Arrays.asList(new Object[][] {{20}, {200}});
+    }
+
+    @Before
+    public void setUp() {
+        StatisticsSpec spec = new StatisticsSpec.Builder(BenchmarkViews.themedContext()).build();
+        renderer = new StatisticsRenderer(BenchmarkViews.themedContext(), spec);
+        renderer.setColumnCount(COLUMN_COUNT);
+
+        int rowCount = renderer.getRowCount();
+        data = new float[histogramCount * rowCount];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (i % rowCount + 1f) / rowCount;
+        }
+
+        // A screen sized canvas, so the cells outside of it are skipped.
+        canvas = new Canvas(Bitmap.createBitmap(renderer.getGridWidth(histogramCount),
+                Math.min(renderer.getGridHeight(histogramCount), 2000),
+                Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    public void drawGrid() {
+        BenchmarkViews.run(benchmarkRule, allocationCountRule,
+                () -> renderer.drawGrid(canvas, data, 0, 0));
+    }
+}
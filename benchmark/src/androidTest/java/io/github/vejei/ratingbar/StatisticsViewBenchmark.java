@@ -0,0 +1,110 @@
+package io.github.vejei.ratingbar;
+
+import android.graphics.Canvas;
+import android.view.View;
+
+import androidx.benchmark.junit4.BenchmarkRule;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ExecutionException;
+
+@RunWith(Parameterized.class)
+public class StatisticsViewBenchmark {
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+    @Rule
+    public AllocationCountRule allocationCountRule = new AllocationCountRule();
+
+    @Parameterized.Parameter
+    public int rowCount;
+
+    private StatisticsView statisticsView;
+    private Canvas canvas;
+    private float[] firstData;
+    private float[] secondData;
+    private int iterationCount;
+
+    @Parameterized.Parameters(name = "rowCount={0}")
+    public static Collection<Object[]> parameters() {
+        return Arrays.asList(new Object[][] {{3}, {5}, {10}});
+    }
+
+    @Before
+    public void setUp() {
+        firstData = new float[rowCount];
+        secondData = new float[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            firstData[i] = (i + 1f) / rowCount;
+            secondData[i] = 1f - firstData[i];
+        }
+
+        BenchmarkViews.runOnMainSync(() -> {
+            statisticsView = new StatisticsView(BenchmarkViews.themedContext());
+            statisticsView.setRowCount(rowCount);
+            statisticsView.feed(firstData);
+            BenchmarkViews.measureAndLayout(statisticsView);
+            canvas = BenchmarkViews.softwareCanvasFor(statisticsView);
+        });
+    }
+
+    @Test
+    public void draw() {
+        BenchmarkViews.runOnMainSync(() -> {
+            BenchmarkViews.run(benchmarkRule, allocationCountRule,
+                    () -> statisticsView.draw(canvas));
+        });
+    }
+
+    @Test
+    public void measure() {
+        BenchmarkViews.runOnMainSync(() -> {
+            int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+            BenchmarkViews.run(benchmarkRule, allocationCountRule, () -> {
+                statisticsView.forceLayout();
+                statisticsView.measure(spec, spec);
+            });
+        });
+    }
+
+    @Test
+    public void feed() {
+        BenchmarkViews.runOnMainSync(() -> {
+            BenchmarkViews.run(benchmarkRule, allocationCountRule, () -> {
+                statisticsView.feed((iterationCount++ % 2 == 0) ? firstData : secondData);
+            });
+        });
+    }
+
+    @Test
+    public void feedPrepared() {
+        PreparedStatistics[] prepared = new PreparedStatistics[2];
+        BenchmarkViews.runOnMainSync(() -> {
+            try {
+                prepared[0] = statisticsView.prepare(firstData, Runnable::run, null).get();
+                prepared[1] = statisticsView.prepare(secondData, Runnable::run, null).get();
+            } catch (ExecutionException | InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        });
+
+        BenchmarkViews.runOnMainSync(() -> {
+            BenchmarkViews.run(benchmarkRule, allocationCountRule,
+                    () -> statisticsView.feed(prepared[iterationCount++ % 2]));
+        });
+    }
+
+    @Test
+    public void addRating() {
+        BenchmarkViews.runOnMainSync(() -> {
+            BenchmarkViews.run(benchmarkRule, allocationCountRule,
+                    () -> statisticsView.addRating(iterationCount++ % rowCount + 1));
+        });
+    }
+}
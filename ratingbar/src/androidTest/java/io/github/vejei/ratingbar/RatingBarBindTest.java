@@ -0,0 +1,56 @@
+package io.github.vejei.ratingbar;
+
+import android.content.Context;
+import android.view.ContextThemeWrapper;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(AndroidJUnit4.class)
+public class RatingBarBindTest {
+
+    private static RatingBar createRatingBar() {
+        Context context = new ContextThemeWrapper(
+                InstrumentationRegistry.getInstrumentation().getTargetContext(),
+                androidx.appcompat.R.style.Theme_AppCompat_Light);
+        return new RatingBar(context);
+    }
+
+    @Test
+    public void bindingTheSameStateTwiceIsANoOp() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                RatingBar ratingBar = createRatingBar();
+                RatingBarState state = new RatingBarState(ratingBar).setRatingStarCount(3.5f);
+
+                assertEquals(RatingBar.BIND_INVALIDATE, ratingBar.bind(state));
+                assertEquals(RatingBar.BIND_NO_OP, ratingBar.bind(state));
+                assertEquals(1, ratingBar.getStats().getNoOpBindCount());
+            }
+        });
+    }
+
+    @Test
+    public void bindingTheSameOffStepRatingTwiceIsANoOp() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                RatingBar ratingBar = createRatingBar();
+                // Stored as the step it falls in, not as the raw value.
+                RatingBarState state = new RatingBarState(ratingBar).setStepSize(0.5f)
+                        .setRatingStarCount(4.3f);
+
+                assertEquals(RatingBar.BIND_INVALIDATE, ratingBar.bind(state));
+                assertEquals(RatingBar.BIND_NO_OP, ratingBar.bind(state));
+                assertEquals(RatingBar.BIND_NO_OP, ratingBar.bind(state));
+                assertEquals(2, ratingBar.getStats().getNoOpBindCount());
+            }
+        });
+    }
+}
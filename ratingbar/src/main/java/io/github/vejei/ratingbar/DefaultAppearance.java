@@ -0,0 +1,89 @@
+package io.github.vejei.ratingbar;
+
+import android.content.res.ColorStateList;
+
+/**
+ * The default styles of {@link RatingBar} and {@link StatisticsView} compiled into constants,
+ * with the colors a light AppCompat theme gives them. A spec built from these values resolves no
+ * style, resource or theme attribute, only the display metrics are read. The tint lists are
+ * created once and shared by the whole process.
+ */
+final class DefaultAppearance {
+    static final int STAR_COUNT = 5;
+    static final float STAR_SIZE_DP = 48;
+    static final float STAR_MARGIN_DP = 4;
+    static final float STEP_SIZE = 0.5f;
+
+    static final float STATISTICS_STAR_SIZE_DP = 12;
+    static final int STATISTICS_ROW_COUNT = 5;
+    static final float STATISTICS_ROW_MARGIN_DP = 2;
+    static final float STATISTICS_COLUMN_MARGIN_DP = 2;
+    static final float DIGITAL_TEXT_SIZE_SP = 10;
+
+    // colorForeground, colorPrimary, colorControlNormal and colorControlActivated of
+    // Theme.AppCompat.Light.
+    static final int COLOR_FOREGROUND = 0xFF000000;
+    static final int COLOR_PRIMARY = 0xFFF5F5F5;
+    static final int COLOR_CONTROL_NORMAL = 0x8A000000;
+    static final int COLOR_CONTROL_ACTIVATED = 0xFF009688;
+
+    // @color/statistics_view_primary and @color/digital_text.
+    static final int STATISTICS_PRIMARY_COLOR = withAlpha(COLOR_FOREGROUND, 0.26f);
+    static final int DIGITAL_TEXT_COLOR = withAlpha(COLOR_FOREGROUND, 0.54f);
+
+    private static ColorStateList starTintList;
+    private static ColorStateList statisticsStarTintList;
+
+    private DefaultAppearance() {}
+
+    /**
+     * Returns @color/ratingbar_bottom_layer. Its focused color is the activated one, so the top
+     * layer is tinted from it without looking up colorControlActivated.
+     */
+    static synchronized ColorStateList getStarTintList() {
+        if (starTintList == null) {
+            starTintList = new ColorStateList(
+                    new int[][] {
+                            new int[] {android.R.attr.state_focused},
+                            new int[0]
+                    },
+                    new int[] {
+                            withAlpha(COLOR_CONTROL_ACTIVATED, 0.26f),
+                            withAlpha(COLOR_CONTROL_NORMAL, 0.26f)
+                    });
+        }
+        return starTintList;
+    }
+
+    /**
+     * Returns @color/statistics_view_primary.
+     */
+    static synchronized ColorStateList getStatisticsStarTintList() {
+        if (statisticsStarTintList == null) {
+            statisticsStarTintList = new ColorStateList(
+                    new int[][] {
+                            new int[] {-android.R.attr.state_enabled},
+                            new int[0]
+                    },
+                    new int[] {
+                            withAlpha(COLOR_FOREGROUND, 0.13f),
+                            STATISTICS_PRIMARY_COLOR
+                    });
+        }
+        return statisticsStarTintList;
+    }
+
+    /**
+     * Converts to pixels the way a dimension resource is, rounded and at least 1 pixel.
+     */
+    static int toPixelSize(float value, float scale) {
+        int size = (int) (value * scale + 0.5f);
+        return (size != 0 || value == 0) ? size : 1;
+    }
+
+    private static int withAlpha(int color, float alpha) {
+        // The alpha of the selector item multiplies the alpha of its color.
+        int combined = Math.round((color >>> 24) * alpha);
+        return (combined << 24) | (color & 0x00FFFFFF);
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.vejei.ratingbar;
+
+import android.graphics.Color;
+import android.graphics.LinearGradient;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Shader;
+
+/**
+ * A hard-stop gradient showing the color of a paint before a horizontal stop and nothing after
+ * it, so a partial fill is a single draw call without any clip. The gradient is only created
+ * again when the color changes, moving the stop updates its local matrix.
+ */
+final class FillShader {
+    private static final float[] POSITIONS = new float[]{0f, 0.5f, 0.5f, 1f};
+
+    private final Matrix matrix = new Matrix();
+    private LinearGradient gradient;
+    private int color;
+    private boolean reversed;
+
+    /**
+     * Sets the shader on the paint. The alpha of the paint still applies, the gradient only
+     * uses its opaque color.
+     *
+     * @param reversed whether the color is shown after the stop instead of before it.
+     */
+    void apply(Paint paint, float stopX, boolean reversed) {
+        int opaqueColor = paint.getColor() | 0xFF000000;
+        if (gradient == null || color != opaqueColor || this.reversed != reversed) {
+            int[] colors = reversed
+                    ? new int[]{Color.TRANSPARENT, Color.TRANSPARENT, opaqueColor, opaqueColor}
+                    : new int[]{opaqueColor, opaqueColor, Color.TRANSPARENT, Color.TRANSPARENT};
+            gradient = new LinearGradient(0, 0, 1, 0, colors, POSITIONS, Shader.TileMode.CLAMP);
+            color = opaqueColor;
+            this.reversed = reversed;
+        }
+
+        // The stop of the unit gradient is at 0.5, the clamped edges cover everything else.
+        matrix.setTranslate(stopX - 0.5f, 0);
+        gradient.setLocalMatrix(matrix);
+        paint.setShader(gradient);
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.vejei.ratingbar;
+
+/**
+ * Formats a fraction as a percentage with one decimal digit, e.g. {@code 0.123f} becomes
+ * {@code "12.3%"}, the same as {@code String.format(Locale.US, "%.1f%%", fraction * 100)} for
+ * -0, NaN, the infinities and any fraction below 10^12 in magnitude. Above that the last
+ * integer digits can differ, Formatter pads the shortest decimal representation with zeros.
+ * The text is written into a caller supplied buffer so no object is allocated.
+ */
+final class PercentageFormatter {
+    /**
+     * A buffer of this length can hold the text of any float value.
+     */
+    static final int MAX_LENGTH = 48;
+
+    private static final char[] NAN = {'N', 'a', 'N', '%'};
+    private static final char[] INFINITY = {'I', 'n', 'f', 'i', 'n', 'i', 't', 'y', '%'};
+
+    private PercentageFormatter() {}
+
+    /**
+     * Writes the percentage text of the fraction into the buffer, starting at index 0.
+     *
+     * @return the number of chars written.
+     */
+    static int format(float fraction, char[] buffer) {
+        float percentage = fraction * 100;
+        if (Float.isNaN(percentage)) {
+            return copy(NAN, false, buffer);
+        }
+        if (Float.isInfinite(percentage)) {
+            return copy(INFINITY, percentage < 0, buffer);
+        }
+
+        // The sign bit, so that -0 is negative as well.
+        boolean negative = Float.floatToRawIntBits(percentage) < 0;
+        // Rounds half up in tenths of a percent, like Formatter does.
+        double tenths = Math.floor(Math.abs((double) percentage) * 10 + 0.5);
+        int length = 0;
+
+        if (negative) {
+            buffer[length++] = '-';
+        }
+
+        // Write the integer part from its least significant digit, then reverse it in place.
+        double integerPart = Math.floor(tenths / 10);
+        int integerStart = length;
+        do {
+            buffer[length++] = (char) ('0' + (int) (integerPart % 10));
+            integerPart = Math.floor(integerPart / 10);
+        } while (integerPart > 0);
+        for (int i = integerStart, j = length - 1; i < j; i++, j--) {
+            char c = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = c;
+        }
+
+        buffer[length++] = '.';
+        buffer[length++] = (char) ('0' + (int) (tenths % 10));
+        buffer[length++] = '%';
+        return length;
+    }
+
+    private static int copy(char[] text, boolean negative, char[] buffer) {
+        int length = 0;
+        if (negative) {
+            buffer[length++] = '-';
+        }
+        System.arraycopy(text, 0, buffer, length, text.length);
+        return length + text.length;
+    }
+}
@@ -0,0 +1,45 @@
+package io.github.vejei.ratingbar;
+
+import java.util.concurrent.Executor;
+
+/**
+ * The data of a {@link StatisticsView} with its formatted labels, their measured widths and the
+ * resulting layout, built by {@link StatisticsView#prepare(float[], Executor,
+ * StatisticsView.OnPreparedListener)} on any thread. A view adopts it with
+ * {@link StatisticsView#feed(PreparedStatistics)} without formatting, measuring or laying out
+ * anything on the main thread.
+ *
+ * <p>A prepared instance is immutable. It only applies to the view that prepared it, as long as
+ * none of the view's geometry or text appearance changed in the meantime, otherwise the view
+ * feeds its data the regular way.</p>
+ */
+public final class PreparedStatistics {
+    // Identifies the configuration of the view the data was prepared with.
+    final Object configuration;
+    final float[] data;
+    final char[][] dataText;
+    final int[] dataTextLength;
+    final float[] dataTextWidth;
+    final StatisticsLayout layout;
+
+    PreparedStatistics(Object configuration, float[] data, char[][] dataText,
+                       int[] dataTextLength, float[] dataTextWidth, StatisticsLayout layout) {
+        this.configuration = configuration;
+        this.data = data;
+        this.dataText = dataText;
+        this.dataTextLength = dataTextLength;
+        this.dataTextWidth = dataTextWidth;
+        this.layout = layout;
+    }
+
+    public int getRowCount() {
+        return data.length;
+    }
+
+    /**
+     * Returns the value of the row, the first row being the one with the most stars.
+     */
+    public float getValue(int row) {
+        return data[row];
+    }
+}
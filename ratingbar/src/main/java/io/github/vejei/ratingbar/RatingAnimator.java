@@ -0,0 +1,106 @@
+package io.github.vejei.ratingbar;
+
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * Drives the animated setters of every view with a single {@link Choreographer} frame callback.
+ * Each view owns its animation object and registers it, so a frame only walks the list of
+ * running animations and allocates nothing. Must be used from the main thread.
+ */
+final class RatingAnimator {
+    static final long DURATION_NANOS = 250000000L;
+
+    private static final RatingAnimator INSTANCE = new RatingAnimator();
+
+    private final ArrayList<Animation> animations = new ArrayList<>();
+    private boolean framePending;
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            framePending = false;
+            onFrame(frameTimeNanos);
+        }
+    };
+
+    private RatingAnimator() {}
+
+    static RatingAnimator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts the animation from its beginning on the next frame, restarting it if it is running.
+     */
+    void start(Animation animation) {
+        animation.running = true;
+        animation.startTimeNanos = -1;
+        if (!animation.registered) {
+            animation.registered = true;
+            animations.add(animation);
+        }
+        if (!framePending) {
+            framePending = true;
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+    }
+
+    /**
+     * Stops the animation where it is, it is not called again.
+     */
+    void cancel(Animation animation) {
+        // The animation is dropped from the list by the next frame, which keeps cancelling safe
+        // from inside a frame.
+        animation.running = false;
+    }
+
+    private void onFrame(long frameTimeNanos) {
+        int kept = 0;
+        // Animations started by a callback of this frame are appended and handled in this loop.
+        for (int i = 0; i < animations.size(); i++) {
+            Animation animation = animations.get(i);
+            if (animation.running) {
+                if (animation.startTimeNanos < 0) {
+                    animation.startTimeNanos = frameTimeNanos;
+                }
+                float fraction = Math.min(1f,
+                        (frameTimeNanos - animation.startTimeNanos) / (float) DURATION_NANOS);
+                if (fraction >= 1f) {
+                    animation.running = false;
+                }
+                animation.onAnimationFrame(interpolate(fraction));
+            }
+            if (animation.running) {
+                animations.set(kept++, animation);
+            } else {
+                animation.registered = false;
+            }
+        }
+        for (int i = animations.size() - 1; i >= kept; i--) {
+            animations.remove(i);
+        }
+
+        if (kept > 0 && !framePending) {
+            framePending = true;
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+    }
+
+    private static float interpolate(float fraction) {
+        // Decelerates towards the target value.
+        float remaining = 1f - fraction;
+        return 1f - remaining * remaining;
+    }
+
+    abstract static class Animation {
+        boolean running;
+        boolean registered;
+        long startTimeNanos;
+
+        /**
+         * Called once per frame with the interpolated fraction, the last call passes 1.
+         */
+        abstract void onAnimationFrame(float fraction);
+    }
+}
@@ -5,15 +5,14 @@ import android.content.Context;
 import android.content.res.ColorStateList;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.LayerDrawable;
 import android.os.Parcel;
 import android.os.Parcelable;
 import android.util.AttributeSet;
-import android.util.TypedValue;
+import android.view.Choreographer;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
 
@@ -21,7 +20,6 @@ import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.StyleRes;
-import androidx.core.content.ContextCompat;
 import androidx.customview.view.AbsSavedState;
 
 import java.lang.annotation.Retention;
@@ -42,7 +40,87 @@ public class RatingBar extends View {
     public static final int SOMATOTYPE_THIN = 0;
     public static final int SOMATOTYPE_FAT = 1;
 
+    @IntDef({SHAPE_STAR, SHAPE_HEART, SHAPE_PATH})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface StarShape {}
+
+    public static final int SHAPE_STAR = 0;
+    public static final int SHAPE_HEART = 1;
+    public static final int SHAPE_PATH = 2;
+
+    @IntDef({RENDER_MODE_DIRECT, RENDER_MODE_BITMAP_CACHE})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface RenderMode {}
+
+    /**
+     * Draw every star layer with its drawable on each frame.
+     */
+    public static final int RENDER_MODE_DIRECT = 0;
+    /**
+     * Rasterize the empty and filled star rows into a cached bitmap strip once, and draw each
+     * frame as two bitmap blits. The strip is rebuilt only when the size, tint or appearance of
+     * the stars changes.
+     */
+    public static final int RENDER_MODE_BITMAP_CACHE = 1;
+
+    @IntDef({FILL_MODE_CLIP, FILL_MODE_SHADER})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface FillMode {}
+
+    /**
+     * Show the partial rating by clipping the top layer.
+     */
+    public static final int FILL_MODE_CLIP = 0;
+    /**
+     * Show the partial rating without changing the clip: fully rated stars are drawn whole, the
+     * partially rated star is cut by a hard-stop gradient shader, and a cached strip is blitted
+     * for the rated width only. Stars that are not a built-in star drawable fall back to a clip
+     * for the partial star.
+     */
+    public static final int FILL_MODE_SHADER = 1;
+
+    @IntDef({BIND_NO_OP, BIND_INVALIDATE, BIND_RETINT, BIND_RELAYOUT})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface BindPath {}
+
+    /**
+     * {@link #bind(RatingBarState)} found nothing to change.
+     */
+    public static final int BIND_NO_OP = 0;
+    /**
+     * {@link #bind(RatingBarState)} only had to redraw, e.g. the rating changed.
+     */
+    public static final int BIND_INVALIDATE = 1;
+    /**
+     * {@link #bind(RatingBarState)} had to tint the stars again and redraw.
+     */
+    public static final int BIND_RETINT = 2;
+    /**
+     * {@link #bind(RatingBarState)} changed the geometry and requested a layout.
+     */
+    public static final int BIND_RELAYOUT = 3;
+
+    @IntDef({DELIVERY_EVERY_STEP, DELIVERY_PER_FRAME, DELIVERY_ON_RELEASE})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface RatingChangeDelivery {}
+
+    /**
+     * Notify the listener of every change of the quantized rating, as soon as it happens.
+     */
+    public static final int DELIVERY_EVERY_STEP = 0;
+    /**
+     * Notify the listener at most once per frame, with the rating at that frame.
+     */
+    public static final int DELIVERY_PER_FRAME = 1;
+    /**
+     * Notify the listener of the changes made by a gesture only once the finger is lifted.
+     * Changes that are not made by the user are notified as soon as they happen.
+     */
+    public static final int DELIVERY_ON_RELEASE = 2;
+
     private @Mode int mode;
+    private @RenderMode int renderMode;
+    private @FillMode int fillMode;
     private Drawable starDrawableFromUser;
     private int starCount;
     private int starSize;
@@ -58,19 +136,66 @@ public class RatingBar extends View {
     private Drawable topLayerStar;
     private Drawable layers;
 
+    private static final int INVALID_POINTER = -1;
+    // How far ahead of the release a fling is projected to pick its target step.
+    private static final float FLING_PROJECTION_SECONDS = 0.1f;
+    // How far ahead of the latest sample a predicted touch is drawn, about one frame.
+    private static final float TOUCH_PREDICTION_SECONDS = 0.016f;
+
     private float touchDownX;
     private boolean isDragging;
     private final float scaleTouchSlop;
-    private final Rect clipBounds = new Rect();
+    private final float minimumFlingVelocity;
+    private final float maximumFlingVelocity;
+    // The pointer driving the gesture, the other pointers are ignored.
+    private int activePointerId = INVALID_POINTER;
+    private VelocityTracker velocityTracker;
+    private boolean predictedTouchEnabled;
+
+    // Drag positions are coalesced and applied at most once per frame.
+    private float pendingDragX;
+    private boolean dragFramePending;
+    private int stepCount;
+    private final Stats stats = new Stats();
+    private final Choreographer.FrameCallback dragFrameCallback =
+            new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    dragFramePending = false;
+                    updatePosition(pendingDragX);
+                }
+            };
+    private final RatingRenderer renderer = new RatingRenderer();
+
+    private OnRatingChangeListener ratingChangeListener;
+    private @RatingChangeDelivery int ratingChangeDelivery;
+    // The rating the listener was last told about, changes back to it are not notified.
+    private float notifiedRatingStarCount;
+    private boolean ratingChangeFramePending;
+    private boolean pendingRatingChangeFromUser;
+    private final Choreographer.FrameCallback ratingChangeFrameCallback =
+            new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    ratingChangeFramePending = false;
+                    notifyRatingChange(pendingRatingChangeFromUser);
+                }
+            };
 
     private float offset;
 
-    private int right;
-    private int top;
-    private int bottom;
+    private float animationFromOffset;
+    private float animationToOffset;
+    private final RatingAnimator.Animation ratingAnimation = new RatingAnimator.Animation() {
+        @Override
+        void onAnimationFrame(float fraction) {
+            offset = animationFromOffset + (animationToOffset - animationFromOffset) * fraction;
+            invalidate();
+        }
+    };
 
     public RatingBar(Context context) {
-        this(context, null);
+        this(context, (AttributeSet) null);
     }
 
     public RatingBar(Context context, @Nullable AttributeSet attrs) {
@@ -87,92 +212,124 @@ public class RatingBar extends View {
 
         TypedArray a = context.getTheme().obtainStyledAttributes(attrs, R.styleable.RatingBar,
                 defStyleAttr, defStyleRes);
+        RatingBarSpec spec = RatingBarSpec.from(context, a);
+        a.recycle();
 
-        mode = a.getInt(R.styleable.RatingBar_bar_mode, 0);
-        starDrawableFromUser = a.getDrawable(R.styleable.RatingBar_star);
-        starCount = a.getInteger(R.styleable.RatingBar_star_count, 0);
-        starSize = a.getDimensionPixelSize(R.styleable.RatingBar_star_size, 0);
-        starMargin = a.getDimensionPixelSize(R.styleable.RatingBar_star_margin, 0);
-
-        if (a.hasValue(R.styleable.RatingBar_star_tint)) {
-            starTintList = a.getColorStateList(R.styleable.RatingBar_star_tint);
-        } else {
-            starTintList = ContextCompat.getColorStateList(context, R.color.ratingbar_bottom_layer);
-        }
-
-        if (starDrawableFromUser == null) {
-            starAppearanceRes = a.getResourceId(R.styleable.RatingBar_star_appearance,
-                    R.style.StarAppearance);
-        }
-
-        stepSize = a.getFloat(R.styleable.RatingBar_step_size, 0.0f);
-        if (stepSize < 0) {
-            stepSize = 0.5f;
-        }
+        ViewConfiguration configuration = ViewConfiguration.get(context);
+        scaleTouchSlop = configuration.getScaledTouchSlop();
+        minimumFlingVelocity = configuration.getScaledMinimumFlingVelocity();
+        maximumFlingVelocity = configuration.getScaledMaximumFlingVelocity();
+        applySpec(spec, spec.starDrawable);
+    }
 
-        ratingStarCount = a.getFloat(R.styleable.RatingBar_rating_star_count, 0);
-        if (ratingStarCount < 0) {
-            ratingStarCount = 0.0f;
+    /**
+     * Creates a rating bar from a spec that was already resolved, skipping all the styled
+     * attribute lookups. A star drawable of the spec is not shared, each rating bar draws a new
+     * drawable created from its constant state.
+     */
+    public RatingBar(Context context, @NonNull RatingBarSpec spec) {
+        super(context);
+
+        ViewConfiguration configuration = ViewConfiguration.get(context);
+        scaleTouchSlop = configuration.getScaledTouchSlop();
+        minimumFlingVelocity = configuration.getScaledMinimumFlingVelocity();
+        maximumFlingVelocity = configuration.getScaledMaximumFlingVelocity();
+
+        Drawable starDrawable = spec.starDrawable;
+        if (starDrawable != null && starDrawable.getConstantState() != null) {
+            starDrawable = starDrawable.getConstantState().newDrawable();
+            if (RatingBarMetrics.enabled) {
+                RatingBarMetrics.reportDrawableCreated(starDrawable);
+            }
         }
+        applySpec(spec, starDrawable);
+    }
 
-        a.recycle();
+    private void applySpec(RatingBarSpec spec, Drawable starDrawable) {
+        mode = spec.mode;
+        renderMode = spec.renderMode;
+        fillMode = spec.fillMode;
+        starDrawableFromUser = starDrawable;
+        starCount = spec.starCount;
+        starSize = spec.starSize;
+        starMargin = spec.starMargin;
+        starTintList = spec.starTintList;
+        starAppearanceRes = spec.starAppearanceRes;
+        stepSize = spec.stepSize;
 
         createDrawables();
         applyDrawablesTint();
 
+        renderer.setRenderMode(renderMode);
+        renderer.setFillMode(fillMode);
         totalSteps = computeTotalSteps();
-        scaleTouchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
 
-        setRatingStarCount(ratingStarCount);
+        setRatingStarCount(spec.ratingStarCount);
     }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         int width, height;
+        boolean measured = RatingBarMetrics.enabled;
+        long startNanos = 0;
+        if (measured) {
+            startNanos = RatingBarMetrics.beginSection(RatingBarMetrics.SECTION_MEASURE);
+        }
 
         width = computeDrawablesWidth() + getPaddingLeft() + getPaddingRight();
         height = starSize + getPaddingTop() + getPaddingBottom();
 
         setMeasuredDimension(resolveSize(width, widthMeasureSpec),
                 resolveSize(height, heightMeasureSpec));
+
+        if (measured) {
+            RatingBarMetrics.reportMeasure(this, startNanos);
+        }
     }
 
     @Override
-    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
-        super.onSizeChanged(w, h, oldw, oldh);
-
-        if (ViewUtils.isLayoutRtl(this)) {
-            right = w - getPaddingRight();
-        } else {
-            right = getPaddingLeft();
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        cancelPendingDrag();
+        cancelRatingAnimation();
+        flushRatingChange();
+        if (velocityTracker != null) {
+            velocityTracker.recycle();
+            velocityTracker = null;
         }
-
-        top = getPaddingTop();
-        bottom = top + starSize;
+        renderer.release();
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
-
-        for (int i = 0; i < starCount; i++) {
-            if (bottomLayerStar != null) {
-                setDrawableBounds(bottomLayerStar, i);
-                bottomLayerStar.draw(canvas);
-            }
+        boolean measured = RatingBarMetrics.enabled;
+        long startNanos = 0;
+        if (measured) {
+            startNanos = RatingBarMetrics.beginSection(RatingBarMetrics.SECTION_DRAW);
         }
 
-        computeClipBounds(offset);
+        boolean layoutRtl = ViewUtils.isLayoutRtl(this);
+        int availableWidth = getWidth() - getPaddingLeft() - getPaddingRight();
+        int left = layoutRtl ? getWidth() - getPaddingRight() - computeDrawablesWidth()
+                : getPaddingLeft();
 
-        canvas.save();
-        canvas.clipRect(clipBounds);
-        for (int i = 0; i < starCount; i++) {
-            if (topLayerStar != null) {
-                setDrawableBounds(topLayerStar, i);
-                topLayerStar.draw(canvas);
-            }
+        renderer.setStars(bottomLayerStar, topLayerStar);
+        renderer.setGeometry(starCount, starSize, starMargin);
+        renderer.setLayoutRtl(layoutRtl);
+        renderer.drawFill(canvas, left, getPaddingTop(), Math.round(availableWidth * offset));
+
+        if (measured) {
+            RatingBarMetrics.reportDraw(this, startNanos);
+        }
+    }
+
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        if (RatingBarMetrics.enabled) {
+            RatingBarMetrics.reportInvalidate(this);
         }
-        canvas.restore();
     }
 
     @Override
@@ -180,9 +337,18 @@ public class RatingBar extends View {
         return super.verifyDrawable(who) || (who == bottomLayerStar) || (who == topLayerStar);
     }
 
+    @Override
+    public void invalidateDrawable(@NonNull Drawable drawable) {
+        if (drawable == bottomLayerStar || drawable == topLayerStar) {
+            renderer.invalidateCache();
+        }
+        super.invalidateDrawable(drawable);
+    }
+
     @Override
     protected void drawableStateChanged() {
         super.drawableStateChanged();
+        renderer.invalidateCache();
         int[] states = getDrawableState();
         if (bottomLayerStar.isStateful()) {
             bottomLayerStar.setState(states);
@@ -200,141 +366,191 @@ public class RatingBar extends View {
         }
 
         int action = event.getActionMasked();
+        long coalescedBefore = stats.coalescedTouchEvents;
+        stats.processedTouchEvents += 1 + event.getHistorySize();
+
+        // The tracker is kept for the next gestures, it is only cleared.
+        if (velocityTracker == null) {
+            velocityTracker = VelocityTracker.obtain();
+        } else if (action == MotionEvent.ACTION_DOWN) {
+            velocityTracker.clear();
+        }
+        velocityTracker.addMovement(event);
+
         switch (action) {
             case MotionEvent.ACTION_DOWN:
+                cancelRatingAnimation();
+                activePointerId = event.getPointerId(0);
                 touchDownX = event.getX();
                 break;
-            case MotionEvent.ACTION_MOVE:
+            case MotionEvent.ACTION_POINTER_UP: {
+                // The gesture goes on with another pointer if the active one is lifted.
+                int pointerIndex = event.getActionIndex();
+                if (event.getPointerId(pointerIndex) == activePointerId) {
+                    int newPointerIndex = (pointerIndex == 0) ? 1 : 0;
+                    activePointerId = event.getPointerId(newPointerIndex);
+                    touchDownX = event.getX(newPointerIndex);
+                }
+                break;
+            }
+            case MotionEvent.ACTION_MOVE: {
+                int pointerIndex = event.findPointerIndex(activePointerId);
+                if (pointerIndex < 0) {
+                    break;
+                }
+                float x = event.getX(pointerIndex);
+                // Only the latest sample decides the rating, the batched history is skipped.
+                stats.coalescedTouchEvents += event.getHistorySize();
                 if (isDragging) {
-                    jumpToPosition(event);
+                    queueDragPosition(predictTouchX(x));
                 } else {
-                    if (Math.abs(event.getX() - touchDownX) > scaleTouchSlop) {
-                        startDrag(event);
+                    if (Math.abs(x - touchDownX) > scaleTouchSlop) {
+                        startDrag(predictTouchX(x));
                     }
                 }
-                invalidate();
                 break;
-            case MotionEvent.ACTION_UP:
+            }
+            case MotionEvent.ACTION_UP: {
+                cancelPendingDrag();
+                float x = event.getX(Math.max(event.findPointerIndex(activePointerId), 0));
                 if (isDragging) {
-                    jumpToPosition(event);
                     isDragging = false;
                     setPressed(false);
+                    snapToPosition(computeReleaseX(x));
                 } else {
-                    isDragging = true;
-                    jumpToPosition(event);
-                    isDragging = false;
+                    updatePosition(x);
                 }
-                invalidate();
+                activePointerId = INVALID_POINTER;
+                onGestureEnd();
                 break;
+            }
             case MotionEvent.ACTION_CANCEL:
+                cancelPendingDrag();
                 isDragging = false;
                 setPressed(false);
+                activePointerId = INVALID_POINTER;
+                onGestureEnd();
                 break;
         }
+
+        if (RatingBarMetrics.enabled) {
+            RatingBarMetrics.reportTouchEvent(this, 1 + event.getHistorySize(),
+                    (int) (stats.coalescedTouchEvents - coalescedBefore));
+        }
         return true;
     }
 
     private void createDrawables() {
-        if (starDrawableFromUser != null) {
-            if (starDrawableFromUser instanceof LayerDrawable) {
-                bottomLayerStar = ((LayerDrawable) starDrawableFromUser).getDrawable(0);
-                topLayerStar = ((LayerDrawable) starDrawableFromUser).getDrawable(1);
-            } else {
-                topLayerStar = starDrawableFromUser.getConstantState().newDrawable();
-                bottomLayerStar = starDrawableFromUser.getConstantState().newDrawable();
-            }
-        } else {
-            bottomLayerStar = new StarDrawable(starSize);
-            topLayerStar = new StarDrawable(starSize);
+        Drawable[] drawables = RatingRenderer.createLayers(getContext(), starDrawableFromUser,
+                starAppearanceRes, starSize);
+        bottomLayerStar = drawables[0];
+        topLayerStar = drawables[1];
 
-            applyStarAppearance();
-        }
         bottomLayerStar.setCallback(this);
-        bottomLayerStar.setBounds(0, 0, starSize, starSize);
-
         topLayerStar.setCallback(this);
-        topLayerStar.setBounds(0, 0, starSize, starSize);
 
-        layers = new LayerDrawable(new Drawable[] {bottomLayerStar, topLayerStar});
-        layers.setCallback(this);
+        layers = null;
+        renderer.invalidateCache();
     }
 
-    private void applyStarAppearance() {
-        if (starDrawableFromUser != null || bottomLayerStar == null || topLayerStar == null) {
-            return;
-        }
-        StarDrawable.StarAppearance bottomLayerAppearance;
-        StarDrawable.StarAppearance topLayerAppearance = new StarDrawable.StarAppearance();
-
-        ((StarDrawable) bottomLayerStar).applyAppearance(getContext(), starAppearanceRes);
-        bottomLayerAppearance = ((StarDrawable) bottomLayerStar).getAppearance();
-
-        topLayerAppearance.hollowed = false;
-        topLayerAppearance.somatotype = bottomLayerAppearance.somatotype;
-        topLayerAppearance.outlineWidth = bottomLayerAppearance.outlineWidth;
-        topLayerAppearance.cornerRounded = bottomLayerAppearance.cornerRounded;
-        topLayerAppearance.cornerRadius = bottomLayerAppearance.cornerRadius;
-
-        ((StarDrawable) topLayerStar).applyAppearance(topLayerAppearance);
+    private void applyDrawablesTint() {
+        RatingRenderer.applyTint(getContext(), bottomLayerStar, topLayerStar, starTintList);
+        renderer.invalidateCache();
     }
 
-    private void applyDrawablesTint() {
-        if (bottomLayerStar != null) {
-            bottomLayerStar.setTintList(starTintList);
-        }
+    private float computeTotalSteps() {
+        return starCount / stepSize;
+    }
 
-        if (topLayerStar != null) {
-            int topLayerColor;
-            int[] states = new int[]{
-                    android.R.attr.state_pressed, android.R.attr.state_focused,
-                    android.R.attr.state_selected, android.R.attr.state_checked
-            };
-            topLayerColor = starTintList.getColorForState(states, -1);
+    private int computeDrawablesWidth() {
+        return Math.round(starSize * starCount + starMargin * (starCount - 1));
+    }
 
-            if (topLayerColor == -1) {
-                final TypedValue value = new TypedValue();
-                if (getContext().getTheme().resolveAttribute(android.R.attr.colorControlActivated,
-                        value, true)) {
-                    topLayerColor = value.data;
-                }
-            }
+    private void startDrag(float x) {
+        setPressed(true);
+        isDragging = true;
+        queueDragPosition(x);
+    }
 
-            topLayerColor = Color.argb(255, Color.red(topLayerColor),
-                    Color.green(topLayerColor), Color.blue(topLayerColor));
+    private float computeVelocityX() {
+        velocityTracker.computeCurrentVelocity(1000, maximumFlingVelocity);
+        return velocityTracker.getXVelocity(activePointerId);
+    }
 
-            topLayerStar.setTint(topLayerColor);
+    /**
+     * Extrapolates the touch by about a frame when predicted touches are enabled, so the fill
+     * keeps up with the finger instead of trailing it.
+     */
+    private float predictTouchX(float x) {
+        if (!predictedTouchEnabled) {
+            return x;
         }
+        return x + computeVelocityX() * TOUCH_PREDICTION_SECONDS;
     }
 
-    private float computeTotalSteps() {
-        return starCount / stepSize;
+    /**
+     * Returns where a drag released at {@code x} is heading: the release position itself, or a
+     * projection along the velocity for a fling.
+     */
+    private float computeReleaseX(float x) {
+        float velocityX = computeVelocityX();
+        if (Math.abs(velocityX) < minimumFlingVelocity) {
+            return x;
+        }
+        return x + velocityX * FLING_PROJECTION_SECONDS;
     }
 
-    private int computeDrawablesWidth() {
-        return Math.round(starSize * starCount + starMargin * (starCount - 1));
+    /**
+     * Moves to the step at the position with the animation of the animated setters, instead of
+     * jumping to it.
+     */
+    private void snapToPosition(float x) {
+        float fromOffset = offset;
+        jumpToPosition(x);
+        if (offset == fromOffset) {
+            stats.skippedRedraws++;
+            return;
+        }
+        animationFromOffset = fromOffset;
+        animationToOffset = offset;
+        offset = fromOffset;
+        RatingAnimator.getInstance().start(ratingAnimation);
     }
 
-    private void setDrawableBounds(Drawable drawable, int position) {
-        int drawableLeft, drawableRight;
-
-        if (ViewUtils.isLayoutRtl(this)) {
-            drawableRight = right - starSize * position - starMargin * position;
-            drawableLeft = drawableRight - starSize;
+    private void queueDragPosition(float x) {
+        pendingDragX = x;
+        if (dragFramePending) {
+            stats.coalescedTouchEvents++;
         } else {
-            drawableLeft = right + starSize * position + starMargin * position;
-            drawableRight = drawableLeft + starSize;
+            dragFramePending = true;
+            Choreographer.getInstance().postFrameCallback(dragFrameCallback);
         }
-        drawable.setBounds(drawableLeft, top, drawableRight, bottom);
     }
 
-    private void startDrag(MotionEvent event) {
-        setPressed(true);
-        isDragging = true;
-        jumpToPosition(event);
+    private void cancelPendingDrag() {
+        if (dragFramePending) {
+            dragFramePending = false;
+            Choreographer.getInstance().removeFrameCallback(dragFrameCallback);
+        }
     }
 
-    private void jumpToPosition(MotionEvent event) {
-        int x = Math.round(event.getX());
+    private void updatePosition(float x) {
+        int oldStepCount = stepCount;
+        float oldOffset = offset;
+        jumpToPosition(x);
+        if (stepCount != oldStepCount || offset != oldOffset) {
+            invalidate();
+        } else {
+            stats.skippedRedraws++;
+        }
+    }
+
+    private void jumpToPosition(float touchX) {
+        boolean traced = RatingBarMetrics.enabled;
+        if (traced) {
+            RatingBarMetrics.beginTraceSection(RatingBarMetrics.SECTION_JUMP_TO_POSITION);
+        }
+        int x = Math.round(touchX);
         int width = getWidth();
         int paddingLeft = getPaddingLeft();
         int paddingRight = getPaddingRight();
@@ -358,56 +574,81 @@ public class RatingBar extends View {
             }
         }
 
-        float remaining = offset * availableWidth;
         float stepDimen = starSize * starCount / totalSteps;
-        float stepsPerStar = computeStepsPerStar();
-        int cutCount = 0;
-        int stepCount = 0;
-
-        while (remaining > 0) {
-            if (cutCount < stepsPerStar) {
-                remaining -= stepDimen;
-                cutCount++;
-                stepCount++;
-            } else {
-                cutCount = 0;
-                remaining -= starMargin;
-            }
-        }
+        stepCount = RatingSteps.stepsForDistance(offset * availableWidth, stepDimen,
+                computeStepsPerStar(), starMargin);
 
-        offset = computeStepsWidth(stepCount) / availableWidth;
+        offset = computeStepsWidth(stepCount, true) / availableWidth;
+
+        if (traced) {
+            RatingBarMetrics.endSection();
+        }
     }
 
     private float computeStepsPerStar() {
         return 1.0f / stepSize;
     }
 
-    private float computeStepsWidth(int totalSteps) {
+    /**
+     * Returns the width filled by the steps, and sets the rating they make. This is the only
+     * place the rating changes, so it is also the one notifying the listener.
+     */
+    private float computeStepsWidth(int totalSteps, boolean fromUser) {
         if (totalSteps <= 0) {
+            ratingStarCount = 0;
+            dispatchRatingChange(fromUser);
             return 0;
         }
-        float stepsStarCount = 1f * totalSteps / computeStepsPerStar();
-        int marginCount = (int) (Math.ceil(stepsStarCount) - 1);
-        ratingStarCount = stepsStarCount;
-        return stepsStarCount * starSize + marginCount * starMargin;
+        ratingStarCount = RatingSteps.ratingForSteps(totalSteps, computeStepsPerStar());
+        dispatchRatingChange(fromUser);
+        return RatingSteps.distanceForSteps(totalSteps, computeStepsPerStar(), starSize,
+                starMargin);
     }
 
-    private void computeClipBounds(float offset) {
-        int width = getWidth();
-        int paddingLeft = getPaddingLeft();
-        int paddingRight = getPaddingRight();
-        int left, right;
-        int distanceMoved = Math.round((width - paddingLeft - paddingRight) * offset);
+    private void dispatchRatingChange(boolean fromUser) {
+        if (ratingChangeListener == null) {
+            return;
+        }
+        switch (ratingChangeDelivery) {
+            case DELIVERY_PER_FRAME:
+                pendingRatingChangeFromUser = fromUser;
+                if (!ratingChangeFramePending) {
+                    ratingChangeFramePending = true;
+                    Choreographer.getInstance().postFrameCallback(ratingChangeFrameCallback);
+                }
+                break;
+            case DELIVERY_ON_RELEASE:
+                // Changes of a gesture are notified by onGestureEnd().
+                if (!fromUser) {
+                    notifyRatingChange(false);
+                }
+                break;
+            case DELIVERY_EVERY_STEP:
+            default:
+                notifyRatingChange(fromUser);
+                break;
+        }
+    }
 
-        if (ViewUtils.isLayoutRtl(this)) {
-            right = width - getPaddingRight();
-            left = right - distanceMoved;
-        } else {
-            left = getPaddingLeft();
-            right = getPaddingLeft() + distanceMoved;
+    private void notifyRatingChange(boolean fromUser) {
+        if (ratingChangeListener != null && ratingStarCount != notifiedRatingStarCount) {
+            notifiedRatingStarCount = ratingStarCount;
+            ratingChangeListener.onRatingChange(this, ratingStarCount, fromUser);
         }
+    }
 
-        clipBounds.set(left, getPaddingTop(), right, getPaddingTop() + starSize);
+    private void onGestureEnd() {
+        if (ratingChangeDelivery == DELIVERY_ON_RELEASE) {
+            notifyRatingChange(true);
+        }
+    }
+
+    private void flushRatingChange() {
+        if (ratingChangeFramePending) {
+            ratingChangeFramePending = false;
+            Choreographer.getInstance().removeFrameCallback(ratingChangeFrameCallback);
+            notifyRatingChange(pendingRatingChangeFromUser);
+        }
     }
 
     @Mode
@@ -419,10 +660,40 @@ public class RatingBar extends View {
         this.mode = mode;
     }
 
+    @RenderMode
+    public int getRenderMode() {
+        return renderMode;
+    }
+
+    public void setRenderMode(@RenderMode int renderMode) {
+        if (this.renderMode != renderMode) {
+            this.renderMode = renderMode;
+            renderer.setRenderMode(renderMode);
+            invalidate();
+        }
+    }
+
+    @FillMode
+    public int getFillMode() {
+        return fillMode;
+    }
+
+    public void setFillMode(@FillMode int fillMode) {
+        if (this.fillMode != fillMode) {
+            this.fillMode = fillMode;
+            renderer.setFillMode(fillMode);
+            invalidate();
+        }
+    }
+
     public Drawable getStarDrawable() {
         if (starDrawableFromUser != null) {
             return starDrawableFromUser;
         } else {
+            if (layers == null) {
+                layers = new LayerDrawable(new Drawable[] {bottomLayerStar, topLayerStar});
+                layers.setCallback(this);
+            }
             return layers;
         }
     }
@@ -431,6 +702,7 @@ public class RatingBar extends View {
         if (starDrawableFromUser != starDrawable) {
             starDrawableFromUser = starDrawable;
             createDrawables();
+            applyDrawablesTint();
             invalidate();
         }
     }
@@ -440,9 +712,11 @@ public class RatingBar extends View {
     }
 
     public void setStarCount(int starCount) {
-        this.starCount = starCount;
-        totalSteps = computeTotalSteps();
-        requestLayout();
+        if (this.starCount != starCount) {
+            this.starCount = starCount;
+            totalSteps = computeTotalSteps();
+            requestLayout();
+        }
     }
 
     public int getStarSize() {
@@ -450,8 +724,14 @@ public class RatingBar extends View {
     }
 
     public void setStarSize(int starSize) {
-        this.starSize = starSize;
-        requestLayout();
+        if (this.starSize != starSize) {
+            this.starSize = starSize;
+            if (starDrawableFromUser == null) {
+                createDrawables();
+                applyDrawablesTint();
+            }
+            requestLayout();
+        }
     }
 
     public int getStarMargin() {
@@ -459,8 +739,10 @@ public class RatingBar extends View {
     }
 
     public void setStarMargin(int starMargin) {
-        this.starMargin = starMargin;
-        requestLayout();
+        if (this.starMargin != starMargin) {
+            this.starMargin = starMargin;
+            requestLayout();
+        }
     }
 
     public ColorStateList getStarTintList() {
@@ -468,15 +750,19 @@ public class RatingBar extends View {
     }
 
     public void setStarTintList(ColorStateList starTintList) {
-        this.starTintList = starTintList;
-        applyDrawablesTint();
-        invalidate();
+        if (this.starTintList != starTintList) {
+            this.starTintList = starTintList;
+            applyDrawablesTint();
+            invalidate();
+        }
     }
 
     public void setStarAppearance(@StyleRes int starAppearanceRes) {
         this.starAppearanceRes = starAppearanceRes;
         if (starDrawableFromUser == null) {
-            applyStarAppearance();
+            createDrawables();
+            applyDrawablesTint();
+            invalidate();
         }
     }
 
@@ -485,9 +771,11 @@ public class RatingBar extends View {
     }
 
     public void setStepSize(float stepSize) {
-        this.stepSize = stepSize;
-        totalSteps = computeTotalSteps();
-        invalidate();
+        if (this.stepSize != stepSize) {
+            this.stepSize = stepSize;
+            totalSteps = computeTotalSteps();
+            invalidate();
+        }
     }
 
     public float getRatingStarCount() {
@@ -495,17 +783,143 @@ public class RatingBar extends View {
     }
 
     public void setRatingStarCount(float ratingStarCount) {
-        int stepCount;
+        cancelRatingAnimation();
+        applyRatingStarCount(ratingStarCount);
+        invalidate();
+    }
+
+    public boolean isPredictedTouchEnabled() {
+        return predictedTouchEnabled;
+    }
+
+    /**
+     * Sets whether a drag draws the rating where the finger is predicted to be on the next frame,
+     * rather than where it was last reported. This lowers the perceived latency of fast drags,
+     * at the cost of overshooting a little when the finger stops abruptly.
+     */
+    public void setPredictedTouchEnabled(boolean predictedTouchEnabled) {
+        this.predictedTouchEnabled = predictedTouchEnabled;
+    }
+
+    public void setOnRatingChangeListener(@Nullable OnRatingChangeListener listener) {
+        setOnRatingChangeListener(listener, DELIVERY_EVERY_STEP);
+    }
+
+    /**
+     * Sets the listener notified when the rating changes, and how often it is notified. The
+     * listener is only told about changes of the quantized rating, a rating that ends up where
+     * it was last notified is not notified again.
+     */
+    public void setOnRatingChangeListener(@Nullable OnRatingChangeListener listener,
+                                          @RatingChangeDelivery int delivery) {
+        flushRatingChange();
+        ratingChangeListener = listener;
+        ratingChangeDelivery = delivery;
+        notifiedRatingStarCount = ratingStarCount;
+    }
+
+    /**
+     * Sets the rating, animating the fill from the current rating if {@code animate} is true and
+     * the view is laid out. All the animating views share one frame callback.
+     */
+    public void setRatingStarCount(float ratingStarCount, boolean animate) {
+        if (!animate || getWidth() == 0) {
+            setRatingStarCount(ratingStarCount);
+            return;
+        }
+        float fromOffset = offset;
+        applyRatingStarCount(ratingStarCount);
+        if (offset != fromOffset) {
+            animationFromOffset = fromOffset;
+            animationToOffset = offset;
+            offset = fromOffset;
+            RatingAnimator.getInstance().start(ratingAnimation);
+        }
+    }
+
+    private void cancelRatingAnimation() {
+        if (ratingAnimation.running) {
+            RatingAnimator.getInstance().cancel(ratingAnimation);
+            offset = animationToOffset;
+        }
+    }
+
+    private void applyRatingStarCount(float ratingStarCount) {
         float stepsWidth;
         int availableWidth = computeDrawablesWidth();
 
-        this.ratingStarCount = ratingStarCount;
-
-        stepCount = (int) Math.ceil(ratingStarCount * computeStepsPerStar());
-        stepsWidth = computeStepsWidth(stepCount);
+        stepCount = RatingSteps.stepsForRating(ratingStarCount, computeStepsPerStar());
+        stepsWidth = computeStepsWidth(stepCount, false);
         offset = stepsWidth / availableWidth;
+    }
 
-        invalidate();
+    /**
+     * Applies the state, doing only the work its differences with the current values require:
+     * nothing, a redraw, a re-tint or a layout. Meant for {@code onBindViewHolder}, where most
+     * binds change the rating only.
+     *
+     * @return the most expensive path that was taken, also counted in {@link #getStats()}.
+     */
+    @BindPath
+    public int bind(@NonNull RatingBarState state) {
+        boolean relayout = state.starCount != starCount || state.starSize != starSize
+                || state.starMargin != starMargin;
+        boolean retint = state.starTintList != starTintList;
+        // The rating is kept quantized to the step, so the steps are compared rather than the
+        // raw rating of the state.
+        boolean redraw = relayout || state.stepSize != stepSize
+                || RatingSteps.stepsForRating(state.ratingStarCount, 1f / state.stepSize)
+                        != stepCount;
+
+        mode = state.mode;
+
+        if (relayout) {
+            boolean sizeChanged = state.starSize != starSize;
+            starCount = state.starCount;
+            starSize = state.starSize;
+            starMargin = state.starMargin;
+            if (sizeChanged && starDrawableFromUser == null) {
+                createDrawables();
+                retint = true;
+            }
+        }
+        if (retint) {
+            starTintList = state.starTintList;
+            applyDrawablesTint();
+        }
+        if (redraw) {
+            cancelRatingAnimation();
+            stepSize = state.stepSize;
+            totalSteps = computeTotalSteps();
+            applyRatingStarCount(state.ratingStarCount);
+        }
+
+        if (relayout) {
+            requestLayout();
+            invalidate();
+            stats.relayoutBinds++;
+            return BIND_RELAYOUT;
+        } else if (retint) {
+            invalidate();
+            stats.retintBinds++;
+            return BIND_RETINT;
+        } else if (redraw) {
+            invalidate();
+            stats.invalidateBinds++;
+            return BIND_INVALIDATE;
+        } else {
+            stats.noOpBinds++;
+            return BIND_NO_OP;
+        }
+    }
+
+    /**
+     * Returns the counters of this view, they can be used to verify how much work the drag
+     * pipeline and {@link #bind(RatingBarState)} saved.
+     */
+    @NonNull
+    public Stats getStats() {
+        return stats;
     }
 
     @Nullable
@@ -528,6 +942,88 @@ public class RatingBar extends View {
         setRatingStarCount(savedState.ratingStarCount);
     }
 
+    public interface OnRatingChangeListener {
+        /**
+         * @param fromUser whether the rating was changed by a touch gesture.
+         */
+        void onRatingChange(@NonNull RatingBar ratingBar, float ratingStarCount,
+                            boolean fromUser);
+    }
+
+    public static final class Stats {
+        long processedTouchEvents;
+        long coalescedTouchEvents;
+        long skippedRedraws;
+        long noOpBinds;
+        long invalidateBinds;
+        long retintBinds;
+        long relayoutBinds;
+
+        Stats() {}
+
+        /**
+         * Returns the number of touch samples received, including the batched history of move
+         * events.
+         */
+        public long getProcessedTouchEventCount() {
+            return processedTouchEvents;
+        }
+
+        /**
+         * Returns the number of touch samples that were merged into a later sample instead of
+         * being applied.
+         */
+        public long getCoalescedTouchEventCount() {
+            return coalescedTouchEvents;
+        }
+
+        /**
+         * Returns the number of applied positions that did not change the quantized step, and
+         * therefore did not invalidate the view.
+         */
+        public long getSkippedRedrawCount() {
+            return skippedRedraws;
+        }
+
+        /**
+         * Returns the number of {@link #bind(RatingBarState)} calls that changed nothing.
+         */
+        public long getNoOpBindCount() {
+            return noOpBinds;
+        }
+
+        /**
+         * Returns the number of {@link #bind(RatingBarState)} calls that only redrew the view.
+         */
+        public long getInvalidateBindCount() {
+            return invalidateBinds;
+        }
+
+        /**
+         * Returns the number of {@link #bind(RatingBarState)} calls that tinted the stars again.
+         */
+        public long getRetintBindCount() {
+            return retintBinds;
+        }
+
+        /**
+         * Returns the number of {@link #bind(RatingBarState)} calls that requested a layout.
+         */
+        public long getRelayoutBindCount() {
+            return relayoutBinds;
+        }
+
+        public void reset() {
+            processedTouchEvents = 0;
+            coalescedTouchEvents = 0;
+            skippedRedraws = 0;
+            noOpBinds = 0;
+            invalidateBinds = 0;
+            retintBinds = 0;
+            relayoutBinds = 0;
+        }
+    }
+
     static class SavedState extends AbsSavedState {
         float ratingStarCount;
 
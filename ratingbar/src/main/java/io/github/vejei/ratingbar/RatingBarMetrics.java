@@ -0,0 +1,127 @@
+package io.github.vejei.ratingbar;
+
+import android.graphics.drawable.Drawable;
+import android.os.Trace;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Receives the measurements of every {@link RatingBar} and {@link StatisticsView} of the process
+ * once installed with {@link #install(RatingBarMetrics)}. The views can also emit
+ * {@link Trace} sections, see {@link #setTraceEnabled(boolean)}. While neither is enabled the
+ * views only check a static flag, nothing is timed or reported.
+ *
+ * <p>The callbacks are made on the main thread, override the ones you need.</p>
+ */
+public abstract class RatingBarMetrics {
+    static final String SECTION_DRAW = "RatingBar#draw";
+    static final String SECTION_MEASURE = "RatingBar#measure";
+    static final String SECTION_JUMP_TO_POSITION = "RatingBar#jumpToPosition";
+    static final String SECTION_STATISTICS_DRAW = "StatisticsView#draw";
+    static final String SECTION_STATISTICS_MEASURE = "StatisticsView#measure";
+
+    private static RatingBarMetrics installed;
+    private static boolean traceEnabled;
+    // Whether anything has to be measured, the only field read when instrumentation is off.
+    static boolean enabled;
+
+    /**
+     * Installs the metrics listener, or removes it if {@code null}. Must be called on the main
+     * thread.
+     */
+    public static void install(@Nullable RatingBarMetrics metrics) {
+        installed = metrics;
+        enabled = (installed != null) || traceEnabled;
+    }
+
+    /**
+     * Sets whether the views emit trace sections around drawing, measuring and touch handling.
+     * Must be called on the main thread.
+     */
+    public static void setTraceEnabled(boolean traceEnabled) {
+        RatingBarMetrics.traceEnabled = traceEnabled;
+        enabled = (installed != null) || traceEnabled;
+    }
+
+    /**
+     * Called after a view was drawn.
+     */
+    public void onDraw(@NonNull View view, long durationNanos) {}
+
+    /**
+     * Called after a view was measured.
+     */
+    public void onMeasure(@NonNull View view, long durationNanos) {}
+
+    /**
+     * Called when a view invalidates itself, or a part of itself.
+     */
+    public void onInvalidate(@NonNull View view) {}
+
+    /**
+     * Called after a touch event was handled by a rating bar.
+     *
+     * @param processedEvents the samples carried by the event, including its batched history.
+     * @param coalescedEvents the samples that were dropped or merged into a later one.
+     */
+    public void onTouchEvent(@NonNull View view, int processedEvents, int coalescedEvents) {}
+
+    /**
+     * Called when a star drawable was created.
+     */
+    public void onDrawableCreated(@NonNull Drawable drawable) {}
+
+    static long beginSection(String section) {
+        beginTraceSection(section);
+        return System.nanoTime();
+    }
+
+    /**
+     * Begins a section that is only traced, not timed.
+     */
+    static void beginTraceSection(String section) {
+        if (traceEnabled) {
+            Trace.beginSection(section);
+        }
+    }
+
+    static void endSection() {
+        if (traceEnabled) {
+            Trace.endSection();
+        }
+    }
+
+    static void reportDraw(View view, long startNanos) {
+        endSection();
+        if (installed != null) {
+            installed.onDraw(view, System.nanoTime() - startNanos);
+        }
+    }
+
+    static void reportMeasure(View view, long startNanos) {
+        endSection();
+        if (installed != null) {
+            installed.onMeasure(view, System.nanoTime() - startNanos);
+        }
+    }
+
+    static void reportInvalidate(View view) {
+        if (installed != null) {
+            installed.onInvalidate(view);
+        }
+    }
+
+    static void reportTouchEvent(View view, int processedEvents, int coalescedEvents) {
+        if (installed != null) {
+            installed.onTouchEvent(view, processedEvents, coalescedEvents);
+        }
+    }
+
+    static void reportDrawableCreated(Drawable drawable) {
+        if (installed != null) {
+            installed.onDrawableCreated(drawable);
+        }
+    }
+}
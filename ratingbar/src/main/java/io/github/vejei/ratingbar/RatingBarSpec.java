@@ -0,0 +1,221 @@
+package io.github.vejei.ratingbar;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.TypedArray;
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.StyleRes;
+import androidx.core.content.ContextCompat;
+
+/**
+ * The configuration of a {@link RatingBar}. A spec is resolved from a style once and can then
+ * be used to create any number of rating bars with {@link RatingBar#RatingBar(Context,
+ * RatingBarSpec)}, which does not touch the theme or the styled attributes.
+ */
+public final class RatingBarSpec {
+    final @RatingBar.Mode int mode;
+    final @RatingBar.RenderMode int renderMode;
+    final @RatingBar.FillMode int fillMode;
+    final Drawable starDrawable;
+    final int starCount;
+    final int starSize;
+    final int starMargin;
+    final ColorStateList starTintList;
+    final @StyleRes int starAppearanceRes;
+    final float stepSize;
+    final float ratingStarCount;
+
+    private RatingBarSpec(Builder builder) {
+        mode = builder.mode;
+        renderMode = builder.renderMode;
+        fillMode = builder.fillMode;
+        starDrawable = builder.starDrawable;
+        starCount = builder.starCount;
+        starSize = builder.starSize;
+        starMargin = builder.starMargin;
+        starTintList = builder.starTintList;
+        starAppearanceRes = builder.starAppearanceRes;
+        stepSize = builder.stepSize;
+        ratingStarCount = builder.ratingStarCount;
+    }
+
+    static RatingBarSpec from(Context context, TypedArray a) {
+        Builder builder = new Builder();
+
+        builder.mode = a.getInt(R.styleable.RatingBar_bar_mode, 0);
+        builder.starDrawable = a.getDrawable(R.styleable.RatingBar_star);
+        builder.starCount = a.getInteger(R.styleable.RatingBar_star_count, 0);
+        builder.starSize = a.getDimensionPixelSize(R.styleable.RatingBar_star_size, 0);
+        builder.starMargin = a.getDimensionPixelSize(R.styleable.RatingBar_star_margin, 0);
+
+        if (a.hasValue(R.styleable.RatingBar_star_tint)) {
+            builder.starTintList = a.getColorStateList(R.styleable.RatingBar_star_tint);
+        } else {
+            builder.starTintList = ContextCompat.getColorStateList(context,
+                    R.color.ratingbar_bottom_layer);
+        }
+
+        if (builder.starDrawable == null) {
+            builder.starAppearanceRes = a.getResourceId(R.styleable.RatingBar_star_appearance,
+                    R.style.StarAppearance);
+        }
+
+        builder.setStepSize(a.getFloat(R.styleable.RatingBar_step_size, 0.0f));
+        builder.setRatingStarCount(a.getFloat(R.styleable.RatingBar_rating_star_count, 0));
+        builder.renderMode = a.getInt(R.styleable.RatingBar_render_mode,
+                RatingBar.RENDER_MODE_DIRECT);
+        builder.fillMode = a.getInt(R.styleable.RatingBar_fill_mode, RatingBar.FILL_MODE_CLIP);
+
+        return builder.build();
+    }
+
+    @NonNull
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.mode = mode;
+        builder.renderMode = renderMode;
+        builder.fillMode = fillMode;
+        builder.starDrawable = starDrawable;
+        builder.starCount = starCount;
+        builder.starSize = starSize;
+        builder.starMargin = starMargin;
+        builder.starTintList = starTintList;
+        builder.starAppearanceRes = starAppearanceRes;
+        builder.stepSize = stepSize;
+        builder.ratingStarCount = ratingStarCount;
+        return builder;
+    }
+
+    public static final class Builder {
+        private @RatingBar.Mode int mode;
+        private @RatingBar.RenderMode int renderMode;
+        private @RatingBar.FillMode int fillMode;
+        private Drawable starDrawable;
+        private int starCount;
+        private int starSize;
+        private int starMargin;
+        private ColorStateList starTintList;
+        private @StyleRes int starAppearanceRes;
+        private float stepSize;
+        private float ratingStarCount;
+
+        private Builder() {}
+
+        /**
+         * Creates a builder initialized with the default style of {@link RatingBar}.
+         */
+        public Builder(@NonNull Context context) {
+            this(context, R.style.RatingBar);
+        }
+
+        /**
+         * Creates a builder initialized with the given style, which is resolved only once here.
+         */
+        public Builder(@NonNull Context context, @StyleRes int styleRes) {
+            TypedArray a = context.getTheme().obtainStyledAttributes(null, R.styleable.RatingBar,
+                    0, styleRes);
+            RatingBarSpec spec = from(context, a);
+            a.recycle();
+
+            mode = spec.mode;
+            renderMode = spec.renderMode;
+            fillMode = spec.fillMode;
+            starDrawable = spec.starDrawable;
+            starCount = spec.starCount;
+            starSize = spec.starSize;
+            starMargin = spec.starMargin;
+            starTintList = spec.starTintList;
+            starAppearanceRes = spec.starAppearanceRes;
+            stepSize = spec.stepSize;
+            ratingStarCount = spec.ratingStarCount;
+        }
+
+        /**
+         * Creates a builder initialized with the default style of {@link RatingBar} compiled in,
+         * with the colors of a light AppCompat theme. Unlike {@link #Builder(Context)}, no
+         * style, resource or theme attribute is resolved, which keeps it cheap on a cold start.
+         */
+        @NonNull
+        public static Builder withPrecompiledDefaults(@NonNull Context context) {
+            float density = context.getResources().getDisplayMetrics().density;
+            Builder builder = new Builder();
+
+            builder.mode = RatingBar.MODE_INTERACTIVE;
+            builder.renderMode = RatingBar.RENDER_MODE_DIRECT;
+            builder.fillMode = RatingBar.FILL_MODE_CLIP;
+            builder.starCount = DefaultAppearance.STAR_COUNT;
+            builder.starSize = DefaultAppearance.toPixelSize(DefaultAppearance.STAR_SIZE_DP,
+                    density);
+            builder.starMargin = DefaultAppearance.toPixelSize(DefaultAppearance.STAR_MARGIN_DP,
+                    density);
+            builder.starTintList = DefaultAppearance.getStarTintList();
+            // No appearance resource stands for the default star appearance.
+            builder.starAppearanceRes = 0;
+            builder.stepSize = DefaultAppearance.STEP_SIZE;
+            return builder;
+        }
+
+        public Builder setMode(@RatingBar.Mode int mode) {
+            this.mode = mode;
+            return this;
+        }
+
+        public Builder setRenderMode(@RatingBar.RenderMode int renderMode) {
+            this.renderMode = renderMode;
+            return this;
+        }
+
+        public Builder setFillMode(@RatingBar.FillMode int fillMode) {
+            this.fillMode = fillMode;
+            return this;
+        }
+
+        public Builder setStarDrawable(@Nullable Drawable starDrawable) {
+            this.starDrawable = starDrawable;
+            return this;
+        }
+
+        public Builder setStarCount(int starCount) {
+            this.starCount = starCount;
+            return this;
+        }
+
+        public Builder setStarSize(int starSize) {
+            this.starSize = starSize;
+            return this;
+        }
+
+        public Builder setStarMargin(int starMargin) {
+            this.starMargin = starMargin;
+            return this;
+        }
+
+        public Builder setStarTintList(@Nullable ColorStateList starTintList) {
+            this.starTintList = starTintList;
+            return this;
+        }
+
+        public Builder setStarAppearance(@StyleRes int starAppearanceRes) {
+            this.starAppearanceRes = starAppearanceRes;
+            return this;
+        }
+
+        public Builder setStepSize(float stepSize) {
+            this.stepSize = (stepSize < 0) ? 0.5f : stepSize;
+            return this;
+        }
+
+        public Builder setRatingStarCount(float ratingStarCount) {
+            this.ratingStarCount = Math.max(ratingStarCount, 0.0f);
+            return this;
+        }
+
+        @NonNull
+        public RatingBarSpec build() {
+            return new RatingBarSpec(this);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package io.github.vejei.ratingbar;
+
+import android.content.res.ColorStateList;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * The per-item values of a {@link RatingBar}, applied with {@link RatingBar#bind(RatingBarState)}.
+ * A state is a plain mutable holder, so an adapter can reuse a single instance for every bind.
+ */
+public final class RatingBarState {
+    @RatingBar.Mode int mode;
+    int starCount;
+    int starSize;
+    int starMargin;
+    ColorStateList starTintList;
+    float stepSize;
+    float ratingStarCount;
+
+    public RatingBarState() {}
+
+    /**
+     * Creates a state holding the current values of the rating bar.
+     */
+    public RatingBarState(@NonNull RatingBar ratingBar) {
+        set(ratingBar);
+    }
+
+    @NonNull
+    public RatingBarState set(@NonNull RatingBar ratingBar) {
+        mode = ratingBar.getMode();
+        starCount = ratingBar.getStarCount();
+        starSize = ratingBar.getStarSize();
+        starMargin = ratingBar.getStarMargin();
+        starTintList = ratingBar.getStarTintList();
+        stepSize = ratingBar.getStepSize();
+        ratingStarCount = ratingBar.getRatingStarCount();
+        return this;
+    }
+
+    @RatingBar.Mode
+    public int getMode() {
+        return mode;
+    }
+
+    @NonNull
+    public RatingBarState setMode(@RatingBar.Mode int mode) {
+        this.mode = mode;
+        return this;
+    }
+
+    public int getStarCount() {
+        return starCount;
+    }
+
+    @NonNull
+    public RatingBarState setStarCount(int starCount) {
+        this.starCount = starCount;
+        return this;
+    }
+
+    public int getStarSize() {
+        return starSize;
+    }
+
+    @NonNull
+    public RatingBarState setStarSize(int starSize) {
+        this.starSize = starSize;
+        return this;
+    }
+
+    public int getStarMargin() {
+        return starMargin;
+    }
+
+    @NonNull
+    public RatingBarState setStarMargin(int starMargin) {
+        this.starMargin = starMargin;
+        return this;
+    }
+
+    @Nullable
+    public ColorStateList getStarTintList() {
+        return starTintList;
+    }
+
+    /**
+     * Sets the tint. Tints are compared by reference when binding, so reuse the same instance
+     * for the same colors.
+     */
+    @NonNull
+    public RatingBarState setStarTintList(@Nullable ColorStateList starTintList) {
+        this.starTintList = starTintList;
+        return this;
+    }
+
+    public float getStepSize() {
+        return stepSize;
+    }
+
+    @NonNull
+    public RatingBarState setStepSize(float stepSize) {
+        this.stepSize = stepSize;
+        return this;
+    }
+
+    public float getRatingStarCount() {
+        return ratingStarCount;
+    }
+
+    @NonNull
+    public RatingBarState setRatingStarCount(float ratingStarCount) {
+        this.ratingStarCount = ratingStarCount;
+        return this;
+    }
+}
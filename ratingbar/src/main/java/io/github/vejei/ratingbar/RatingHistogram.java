@@ -0,0 +1,119 @@
+package io.github.vejei.ratingbar;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Keeps the number of ratings received for each star count, so that a distribution can be
+ * maintained incrementally instead of being recomputed from the raw ratings.
+ *
+ * <p>A rating of {@code n} stars is counted in the row that shows {@code n} stars, the first
+ * row shows {@code rowCount} stars and the last one a single star, the same order as the data
+ * passed to {@link StatisticsView#feed(float[])}.</p>
+ *
+ * <p>This class is not thread safe.</p>
+ */
+public final class RatingHistogram {
+    private final long[] counts;
+    private long total;
+
+    public RatingHistogram(int rowCount) {
+        if (rowCount < 0) {
+            throw new IllegalArgumentException("The row count must not be negative: " + rowCount);
+        }
+        counts = new long[rowCount];
+    }
+
+    public int getRowCount() {
+        return counts.length;
+    }
+
+    public void addRating(int stars) {
+        counts[rowOf(stars)]++;
+        total++;
+    }
+
+    public void removeRating(int stars) {
+        int row = rowOf(stars);
+        if (counts[row] == 0) {
+            throw new IllegalArgumentException("There is no rating of " + stars + " stars");
+        }
+        counts[row]--;
+        total--;
+    }
+
+    /**
+     * Adds ratings in bulk, {@code counts[i]} is the number of ratings of {@code i + 1} stars.
+     */
+    public void addRatings(@NonNull int[] counts) {
+        int length = Math.min(counts.length, this.counts.length);
+        for (int i = 0; i < length; i++) {
+            if (counts[i] < 0) {
+                throw new IllegalArgumentException("The count of ratings must not be negative");
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            this.counts[rowOf(i + 1)] += counts[i];
+            total += counts[i];
+        }
+    }
+
+    public void merge(@NonNull RatingHistogram other) {
+        if (other.counts.length != counts.length) {
+            throw new IllegalArgumentException("Cannot merge a histogram of "
+                    + other.counts.length + " rows into one of " + counts.length + " rows");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+    }
+
+    /**
+     * Returns a copy of this histogram with another row count. The counts of star counts the
+     * new row count doesn't have are dropped.
+     */
+    @NonNull
+    public RatingHistogram withRowCount(int rowCount) {
+        RatingHistogram resized = new RatingHistogram(rowCount);
+        int stars = Math.min(rowCount, counts.length);
+        for (int i = 1; i <= stars; i++) {
+            long count = counts[rowOf(i)];
+            resized.counts[resized.rowOf(i)] = count;
+            resized.total += count;
+        }
+        return resized;
+    }
+
+    public void clear() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 0;
+        }
+        total = 0;
+    }
+
+    public long getCount(int stars) {
+        return counts[rowOf(stars)];
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Writes the fraction of ratings of each row into {@code fractions}, in row order.
+     */
+    public void fillFractions(@NonNull float[] fractions) {
+        int length = Math.min(fractions.length, counts.length);
+        for (int i = 0; i < length; i++) {
+            fractions[i] = (total > 0) ? (float) ((double) counts[i] / total) : 0f;
+        }
+    }
+
+    private int rowOf(int stars) {
+        if (stars < 1 || stars > counts.length) {
+            throw new IllegalArgumentException("The stars must be between 1 and "
+                    + counts.length + ": " + stars);
+        }
+        return counts.length - stars;
+    }
+}
@@ -0,0 +1,140 @@
+package io.github.vejei.ratingbar;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.view.View;
+
+import androidx.annotation.IdRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Draws indicative ratings over the rows of a {@link RecyclerView} with a single
+ * {@link RatingRenderer}, so read-only ratings need no {@link RatingBar} per row, nor its
+ * measure, layout and drawables. The ratings are a primitive array indexed by adapter position,
+ * rows whose rating is negative or NaN, or beyond the array, get no rating.
+ *
+ * <p>A rating is drawn in the view of the row with the anchor id, typically an empty view of
+ * the size of the stars, vertically centered and aligned to its start edge. Without an anchor
+ * it is drawn at the start of the row, after its padding, vertically centered. The rating
+ * follows the translation, scale, rotation and alpha of its row, as item animations set them.</p>
+ *
+ * <p>The library only compiles against RecyclerView, an app using this class must depend on
+ * {@code androidx.recyclerview:recyclerview} itself.</p>
+ */
+public final class RatingItemDecoration extends RecyclerView.ItemDecoration {
+    private final RatingRenderer renderer;
+    private float[] ratings;
+    private @IdRes int anchorViewId = View.NO_ID;
+
+    public RatingItemDecoration(@NonNull Context context, @NonNull RatingBarSpec spec) {
+        this(new RatingRenderer(context, spec));
+    }
+
+    public RatingItemDecoration(@NonNull RatingRenderer renderer) {
+        this.renderer = renderer;
+    }
+
+    @NonNull
+    public RatingRenderer getRenderer() {
+        return renderer;
+    }
+
+    /**
+     * Sets the ratings, {@code ratings[position]} being the rating of the row at the adapter
+     * position. The array is not copied, call {@link RecyclerView#invalidateItemDecorations()}
+     * after changing it.
+     */
+    public void setRatings(@Nullable float[] ratings) {
+        this.ratings = ratings;
+    }
+
+    @Nullable
+    public float[] getRatings() {
+        return ratings;
+    }
+
+    public void setAnchorViewId(@IdRes int anchorViewId) {
+        this.anchorViewId = anchorViewId;
+    }
+
+    public int getAnchorViewId() {
+        return anchorViewId;
+    }
+
+    @Override
+    public void onDrawOver(@NonNull Canvas canvas, @NonNull RecyclerView parent,
+                           @NonNull RecyclerView.State state) {
+        float[] ratings = this.ratings;
+        if (ratings == null) {
+            return;
+        }
+        boolean layoutRtl = ViewUtils.isLayoutRtl(parent);
+        renderer.setLayoutRtl(layoutRtl);
+        int ratingWidth = renderer.getWidth();
+        int ratingHeight = renderer.getHeight();
+
+        for (int i = 0, count = parent.getChildCount(); i < count; i++) {
+            View child = parent.getChildAt(i);
+            int position = parent.getChildAdapterPosition(child);
+            if (position == RecyclerView.NO_POSITION || position >= ratings.length) {
+                continue;
+            }
+            float rating = ratings[position];
+            float alpha = child.getAlpha();
+            if (!(rating >= 0) || alpha <= 0) {
+                continue;
+            }
+
+            View anchor = (anchorViewId != View.NO_ID) ? child.findViewById(anchorViewId) : null;
+            int left, top, right, bottom;
+            if (anchor != null) {
+                // The anchor position is summed up to the row, the rows are direct children.
+                // Each view on the way is drawn moved by its translation and by the scroll of
+                // its parent, the row included.
+                float anchorLeft = 0;
+                float anchorTop = 0;
+                View view = anchor;
+                while (view != child) {
+                    anchorLeft += view.getLeft() + view.getTranslationX();
+                    anchorTop += view.getTop() + view.getTranslationY();
+                    view = (View) view.getParent();
+                    anchorLeft -= view.getScrollX();
+                    anchorTop -= view.getScrollY();
+                }
+                left = Math.round(anchorLeft);
+                top = Math.round(anchorTop);
+                right = left + anchor.getWidth();
+                bottom = top + anchor.getHeight();
+            } else {
+                left = child.getPaddingLeft();
+                top = child.getPaddingTop();
+                right = child.getWidth() - child.getPaddingRight();
+                bottom = child.getHeight() - child.getPaddingBottom();
+            }
+
+            int ratingLeft = layoutRtl ? right - ratingWidth : left;
+            int ratingTop = top + (bottom - top - ratingHeight) / 2;
+            Matrix matrix = child.getMatrix();
+            if (alpha >= 1 && matrix.isIdentity()) {
+                renderer.draw(canvas, child.getLeft() + ratingLeft, child.getTop() + ratingTop,
+                        rating);
+                continue;
+            }
+
+            // The row is transformed or faded, by an item animation for instance, the rating
+            // follows it the way the row is drawn.
+            int saveCount = canvas.save();
+            canvas.translate(child.getLeft(), child.getTop());
+            canvas.concat(matrix);
+            if (alpha < 1) {
+                canvas.saveLayerAlpha(ratingLeft, ratingTop, ratingLeft + ratingWidth,
+                        ratingTop + ratingHeight, Math.round(alpha * 255));
+            }
+            renderer.draw(canvas, ratingLeft, ratingTop, rating);
+            canvas.restoreToCount(saveCount);
+        }
+    }
+}
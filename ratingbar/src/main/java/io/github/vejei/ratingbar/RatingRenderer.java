@@ -0,0 +1,379 @@
+package io.github.vejei.ratingbar;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.LayerDrawable;
+import android.util.TypedValue;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.StyleRes;
+
+/**
+ * Draws ratings into any {@link Canvas} without a {@link RatingBar}. A renderer holds the star
+ * layers and the geometry of one configuration and keeps no per-rating state, so a single host
+ * view or item decoration can draw any number of ratings with it:
+ *
+ * <pre>
+ * RatingRenderer renderer = new RatingRenderer(context, spec);
+ * for (int i = 0; i &lt; count; i++) {
+ *     renderer.draw(canvas, lefts[i], tops[i], ratings[i]);
+ * }
+ * </pre>
+ *
+ * The star drawables are not shared with other renderers, and a renderer must only be used from
+ * the thread that draws it.
+ */
+public final class RatingRenderer {
+    private static final int[] TOP_LAYER_STATES = new int[]{
+            android.R.attr.state_pressed, android.R.attr.state_focused,
+            android.R.attr.state_selected, android.R.attr.state_checked
+    };
+
+    private Drawable bottomLayerStar;
+    private Drawable topLayerStar;
+    private int starCount;
+    private int starSize;
+    private int starMargin;
+    private float stepSize = 0.5f;
+    private boolean layoutRtl;
+    private @RatingBar.RenderMode int renderMode;
+    private @RatingBar.FillMode int fillMode;
+
+    private final Rect clipBounds = new Rect();
+
+    private Bitmap starStrip;
+    private boolean starStripDirty = true;
+    private final Rect stripSrc = new Rect();
+    private final Rect stripDst = new Rect();
+
+    RatingRenderer() {}
+
+    /**
+     * Creates a renderer drawing the stars described by the spec. The rating of the spec is
+     * ignored, each call of {@link #draw(Canvas, int, int, float)} passes its own.
+     */
+    public RatingRenderer(@NonNull Context context, @NonNull RatingBarSpec spec) {
+        Drawable starDrawable = spec.starDrawable;
+        if (starDrawable != null && starDrawable.getConstantState() != null) {
+            starDrawable = starDrawable.getConstantState().newDrawable();
+            if (RatingBarMetrics.enabled) {
+                RatingBarMetrics.reportDrawableCreated(starDrawable);
+            }
+        }
+        Drawable[] layers = createLayers(context, starDrawable, spec.starAppearanceRes,
+                spec.starSize);
+        applyTint(context, layers[0], layers[1], spec.starTintList);
+
+        setStars(layers[0], layers[1]);
+        setGeometry(spec.starCount, spec.starSize, spec.starMargin);
+        stepSize = spec.stepSize;
+        renderMode = spec.renderMode;
+        fillMode = spec.fillMode;
+    }
+
+    /**
+     * Returns the bottom and the top layer of the stars, either taken from the drawable of the
+     * user or created from the appearance.
+     */
+    static Drawable[] createLayers(Context context, @Nullable Drawable starDrawable,
+                                   @StyleRes int starAppearanceRes, int starSize) {
+        Drawable bottomLayerStar, topLayerStar;
+        boolean created = true;
+
+        if (starDrawable != null) {
+            if (starDrawable instanceof LayerDrawable) {
+                bottomLayerStar = ((LayerDrawable) starDrawable).getDrawable(0);
+                topLayerStar = ((LayerDrawable) starDrawable).getDrawable(1);
+                created = false;
+            } else {
+                topLayerStar = starDrawable.getConstantState().newDrawable();
+                bottomLayerStar = starDrawable.getConstantState().newDrawable();
+            }
+        } else {
+            // The states are shared by every star with the same appearance and size.
+            StarDrawable.StarAppearance appearance = StarDrawable.StarAppearance.obtain(context,
+                    starAppearanceRes);
+            bottomLayerStar = appearance.getState(starSize).newDrawable();
+            topLayerStar = appearance.filled().getState(starSize).newDrawable();
+        }
+        bottomLayerStar.setBounds(0, 0, starSize, starSize);
+        topLayerStar.setBounds(0, 0, starSize, starSize);
+
+        if (created && RatingBarMetrics.enabled) {
+            RatingBarMetrics.reportDrawableCreated(bottomLayerStar);
+            RatingBarMetrics.reportDrawableCreated(topLayerStar);
+        }
+        return new Drawable[] {bottomLayerStar, topLayerStar};
+    }
+
+    static void applyTint(Context context, @Nullable Drawable bottomLayerStar,
+                          @Nullable Drawable topLayerStar, ColorStateList starTintList) {
+        if (bottomLayerStar != null) {
+            bottomLayerStar.setTintList(starTintList);
+        }
+
+        if (topLayerStar != null) {
+            int topLayerColor = starTintList.getColorForState(TOP_LAYER_STATES, -1);
+
+            if (topLayerColor == -1) {
+                final TypedValue value = new TypedValue();
+                if (context.getTheme().resolveAttribute(android.R.attr.colorControlActivated,
+                        value, true)) {
+                    topLayerColor = value.data;
+                }
+            }
+
+            topLayerColor = Color.argb(255, Color.red(topLayerColor),
+                    Color.green(topLayerColor), Color.blue(topLayerColor));
+
+            topLayerStar.setTint(topLayerColor);
+        }
+    }
+
+    void setStars(Drawable bottomLayerStar, Drawable topLayerStar) {
+        if (this.bottomLayerStar != bottomLayerStar || this.topLayerStar != topLayerStar) {
+            this.bottomLayerStar = bottomLayerStar;
+            this.topLayerStar = topLayerStar;
+            starStripDirty = true;
+        }
+    }
+
+    void setGeometry(int starCount, int starSize, int starMargin) {
+        if (this.starCount != starCount || this.starSize != starSize
+                || this.starMargin != starMargin) {
+            this.starCount = starCount;
+            this.starSize = starSize;
+            this.starMargin = starMargin;
+            starStripDirty = true;
+        }
+    }
+
+    public float getStepSize() {
+        return stepSize;
+    }
+
+    public void setStepSize(float stepSize) {
+        this.stepSize = stepSize;
+    }
+
+    public boolean isLayoutRtl() {
+        return layoutRtl;
+    }
+
+    /**
+     * Sets whether the stars fill from the right edge.
+     */
+    public void setLayoutRtl(boolean layoutRtl) {
+        if (this.layoutRtl != layoutRtl) {
+            this.layoutRtl = layoutRtl;
+            starStripDirty = true;
+        }
+    }
+
+    @RatingBar.RenderMode
+    public int getRenderMode() {
+        return renderMode;
+    }
+
+    public void setRenderMode(@RatingBar.RenderMode int renderMode) {
+        if (this.renderMode != renderMode) {
+            this.renderMode = renderMode;
+            if (renderMode != RatingBar.RENDER_MODE_BITMAP_CACHE) {
+                release();
+            }
+        }
+    }
+
+    @RatingBar.FillMode
+    public int getFillMode() {
+        return fillMode;
+    }
+
+    public void setFillMode(@RatingBar.FillMode int fillMode) {
+        this.fillMode = fillMode;
+    }
+
+    /**
+     * Returns the width of the stars and their margins.
+     */
+    public int getWidth() {
+        return Math.round(starSize * starCount + starMargin * (starCount - 1));
+    }
+
+    public int getHeight() {
+        return starSize;
+    }
+
+    /**
+     * Draws a rating with the top left corner of the stars at the given position. The rating is
+     * quantized to the step size the same way {@link RatingBar} does.
+     */
+    public void draw(@NonNull Canvas canvas, int left, int top, float ratingStarCount) {
+        float stepsPerStar = 1.0f / stepSize;
+        int steps = RatingSteps.stepsForRating(ratingStarCount, stepsPerStar);
+        float fillWidth = RatingSteps.distanceForSteps(steps, stepsPerStar, starSize,
+                starMargin);
+        drawFill(canvas, left, top, Math.round(Math.min(fillWidth, getWidth())));
+    }
+
+    /**
+     * Draws the stars with the top layer covering {@code fillWidth} pixels from the start edge.
+     */
+    void drawFill(Canvas canvas, int left, int top, int fillWidth) {
+        int width = getWidth();
+        if (width <= 0 || starSize <= 0) {
+            return;
+        }
+        fillWidth = Math.min(fillWidth, width);
+
+        if (layoutRtl) {
+            clipBounds.set(left + width - fillWidth, top, left + width, top + starSize);
+        } else {
+            clipBounds.set(left, top, left + fillWidth, top + starSize);
+        }
+
+        if (renderMode == RatingBar.RENDER_MODE_BITMAP_CACHE) {
+            drawStarStrip(canvas, left, top, width);
+            return;
+        }
+
+        for (int i = 0; i < starCount; i++) {
+            if (bottomLayerStar != null) {
+                setDrawableBounds(bottomLayerStar, left, top, width, i);
+                bottomLayerStar.draw(canvas);
+            }
+        }
+
+        if (fillMode == RatingBar.FILL_MODE_SHADER) {
+            drawTopLayerWithoutClip(canvas, left, top, width, fillWidth);
+            return;
+        }
+
+        canvas.save();
+        canvas.clipRect(clipBounds);
+        for (int i = 0; i < starCount; i++) {
+            if (topLayerStar != null) {
+                setDrawableBounds(topLayerStar, left, top, width, i);
+                topLayerStar.draw(canvas);
+            }
+        }
+        canvas.restore();
+    }
+
+    private void drawTopLayerWithoutClip(Canvas canvas, int left, int top, int width,
+                                         int fillWidth) {
+        if (topLayerStar == null) {
+            return;
+        }
+        for (int i = 0; i < starCount; i++) {
+            int covered = fillWidth - (starSize + starMargin) * i;
+            if (covered <= 0) {
+                break;
+            }
+            setDrawableBounds(topLayerStar, left, top, width, i);
+            if (covered >= starSize) {
+                topLayerStar.draw(canvas);
+            } else if (topLayerStar instanceof StarDrawable) {
+                ((StarDrawable) topLayerStar).drawPartial(canvas, covered / (float) starSize,
+                        layoutRtl);
+            } else {
+                canvas.save();
+                canvas.clipRect(clipBounds);
+                topLayerStar.draw(canvas);
+                canvas.restore();
+            }
+        }
+    }
+
+    private void setDrawableBounds(Drawable drawable, int left, int top, int width,
+                                   int position) {
+        int drawableLeft, drawableRight;
+
+        if (layoutRtl) {
+            drawableRight = left + width - starSize * position - starMargin * position;
+            drawableLeft = drawableRight - starSize;
+        } else {
+            drawableLeft = left + starSize * position + starMargin * position;
+            drawableRight = drawableLeft + starSize;
+        }
+        drawable.setBounds(drawableLeft, top, drawableRight, top + starSize);
+    }
+
+    private void drawStarStrip(Canvas canvas, int left, int top, int stripWidth) {
+        if (starStripDirty || starStrip == null) {
+            buildStarStrip(stripWidth);
+        }
+
+        stripDst.set(left, top, left + stripWidth, top + starSize);
+
+        // The first row of the strip holds the bottom layer, the second one the top layer.
+        stripSrc.set(0, 0, stripWidth, starSize);
+        canvas.drawBitmap(starStrip, stripSrc, stripDst, null);
+
+        if (fillMode == RatingBar.FILL_MODE_SHADER) {
+            // Blitting only the rated part of the top row needs no clip.
+            if (clipBounds.isEmpty()) {
+                return;
+            }
+            stripSrc.set(clipBounds.left - left, starSize, clipBounds.right - left,
+                    starSize * 2);
+            canvas.drawBitmap(starStrip, stripSrc, clipBounds, null);
+            return;
+        }
+
+        canvas.save();
+        canvas.clipRect(clipBounds);
+        stripSrc.offset(0, starSize);
+        canvas.drawBitmap(starStrip, stripSrc, stripDst, null);
+        canvas.restore();
+    }
+
+    private void buildStarStrip(int stripWidth) {
+        int stripHeight = starSize * 2;
+        if (starStrip == null || starStrip.getWidth() != stripWidth
+                || starStrip.getHeight() != stripHeight) {
+            release();
+            starStrip = Bitmap.createBitmap(stripWidth, stripHeight, Bitmap.Config.ARGB_8888);
+        } else {
+            starStrip.eraseColor(Color.TRANSPARENT);
+        }
+
+        Canvas stripCanvas = new Canvas(starStrip);
+        for (int i = 0; i < starCount; i++) {
+            if (bottomLayerStar != null) {
+                setDrawableBounds(bottomLayerStar, 0, 0, stripWidth, i);
+                bottomLayerStar.draw(stripCanvas);
+            }
+            if (topLayerStar != null) {
+                setDrawableBounds(topLayerStar, 0, starSize, stripWidth, i);
+                topLayerStar.draw(stripCanvas);
+            }
+        }
+        starStripDirty = false;
+    }
+
+    /**
+     * Marks the cached star strip as stale, call it after the tint, the state or the appearance
+     * of the star drawables changed.
+     */
+    public void invalidateCache() {
+        starStripDirty = true;
+    }
+
+    /**
+     * Releases the cached star strip, it is created again by the next draw if needed.
+     */
+    public void release() {
+        if (starStrip != null) {
+            starStrip.recycle();
+            starStrip = null;
+        }
+        starStripDirty = true;
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.vejei.ratingbar;
+
+/**
+ * Closed-form mapping between a distance measured from the start edge of the stars and a
+ * quantized step index.
+ *
+ * <p>Each star holds {@code ceil(stepsPerStar)} steps of {@code stepDimen} pixels and is followed
+ * by a margin, so the distance consumed before step {@code s} of star {@code j} is
+ * {@code j * (stepsPerStar * stepDimen + margin) + s * stepDimen}. The step count for a
+ * distance is the number of steps whose start lies before that distance.</p>
+ */
+final class RatingSteps {
+
+    private RatingSteps() {}
+
+    static int stepsForDistance(float distance, float stepDimen, float stepsPerStar,
+                                int starMargin) {
+        if (distance <= 0 || !(stepDimen > 0) || !(stepsPerStar > 0)) {
+            return 0;
+        }
+        int stepsInStar = (int) Math.ceil(stepsPerStar);
+        float starBlock = stepsInStar * stepDimen + starMargin;
+
+        // Index of the last star that receives at least one step.
+        int lastStar = Math.max((int) Math.ceil(distance / starBlock) - 1, 0);
+        float remaining = distance - lastStar * starBlock;
+        int lastStarSteps = (int) Math.min(stepsInStar, Math.ceil(remaining / stepDimen));
+
+        return lastStar * stepsInStar + Math.max(lastStarSteps, 0);
+    }
+
+    static float distanceForSteps(int steps, float stepsPerStar, int starSize, int starMargin) {
+        if (steps <= 0) {
+            return 0;
+        }
+        float stepsStarCount = ratingForSteps(steps, stepsPerStar);
+        int marginCount = (int) (Math.ceil(stepsStarCount) - 1);
+        return stepsStarCount * starSize + marginCount * starMargin;
+    }
+
+    static int stepsForRating(float rating, float stepsPerStar) {
+        return (int) Math.ceil(rating * stepsPerStar);
+    }
+
+    static float ratingForSteps(int steps, float stepsPerStar) {
+        return 1f * steps / stepsPerStar;
+    }
+}
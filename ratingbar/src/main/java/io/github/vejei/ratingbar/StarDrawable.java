@@ -5,11 +5,11 @@ import android.content.res.ColorStateList;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.ColorFilter;
-import android.graphics.CornerPathEffect;
 import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.PixelFormat;
 import android.graphics.drawable.Drawable;
+import android.util.SparseArray;
 
 import androidx.annotation.Dimension;
 import androidx.annotation.NonNull;
@@ -17,43 +17,52 @@ import androidx.annotation.Nullable;
 import androidx.annotation.StyleRes;
 
 class StarDrawable extends Drawable {
-    private final @Dimension int size;
-    private StarAppearance appearance;
+    // Immutable, shared by every drawable of the same size and appearance.
+    private StarState state;
     private ColorStateList tintList;
 
     private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
-    private final Path path = new Path();
-
-    private final float radius;
-    private float innerRadius;
+    private FillShader fillShader;
 
     public StarDrawable(int size) {
-        this.size = size;
+        this(StarAppearance.DEFAULT.getState(size));
+    }
 
-        this.radius = size / 2f;
-        this.innerRadius = radius / 2.5f;
+    private StarDrawable(StarState state) {
+        this.state = state;
 
-        paint.setStrokeJoin(Paint.Join.MITER);
+        paint.setStyle(Paint.Style.FILL);
     }
 
     @Override
     public void draw(@NonNull Canvas canvas) {
+        float radius = state.radius;
+
         canvas.save();
         canvas.translate(getBounds().left + radius, getBounds().top + radius);
+        canvas.drawPath(state.path, paint);
+        canvas.restore();
+    }
+
+    /**
+     * Draws only the given fraction of the star, measured from its left edge, or from its right
+     * edge if reversed. The rest is cut by a shader instead of a clip.
+     */
+    void drawPartial(@NonNull Canvas canvas, float fraction, boolean reversed) {
+        float radius = state.radius;
+        float filled = fraction * state.size;
 
-        path.moveTo((float) (Math.cos(18f / 180f * Math.PI) * radius),
-                (float) -Math.sin(18f / 180f * Math.PI) * radius);
-        path.lineTo((float) (Math.cos(54 / 180f * Math.PI) * innerRadius),
-                (float) (-Math.sin(54 / 180f * Math.PI) * innerRadius));
-        for (int i = 1; i < 5; i++) {
-            path.lineTo((float) (Math.cos((18f + i * 72f) / 180f * Math.PI) * radius),
-                    (float) -Math.sin((18f + i * 72f) / 180f * Math.PI) * radius);
-            path.lineTo((float) (Math.cos((54 + i * 72) / 180f * Math.PI) * innerRadius),
-                    (float) (-Math.sin((54 + i * 72) / 180f * Math.PI) * innerRadius));
+        if (fillShader == null) {
+            fillShader = new FillShader();
         }
-        path.close();
-        canvas.drawPath(path, paint);
+        fillShader.apply(paint, reversed ? radius - filled : filled - radius, reversed);
+
+        canvas.save();
+        canvas.translate(getBounds().left + radius, getBounds().top + radius);
+        canvas.drawPath(state.path, paint);
         canvas.restore();
+
+        paint.setShader(null);
     }
 
     @Override
@@ -101,74 +110,194 @@ class StarDrawable extends Drawable {
 
     @Override
     public int getIntrinsicWidth() {
-        return (size != 0) ? size : -1;
+        return (state.size != 0) ? state.size : -1;
     }
 
     @Override
     public int getIntrinsicHeight() {
-        return (size != 0) ? size : -1;
+        return (state.size != 0) ? state.size : -1;
+    }
+
+    @Nullable
+    @Override
+    public ConstantState getConstantState() {
+        return state;
     }
 
     public void applyAppearance(Context context, @StyleRes int appearanceRes) {
         if (context == null) {
             return;
         }
-        appearance = new StarAppearance();
-        TypedArray a = context.obtainStyledAttributes(appearanceRes, R.styleable.StarAppearance);
-
-        appearance.somatotype = a.getInt(R.styleable.StarAppearance_star_somatotype, 0);
-        appearance.hollowed = a.getBoolean(R.styleable.StarAppearance_star_hollowed, false);
-        appearance.outlineWidth = a.getDimensionPixelSize(
-                R.styleable.StarAppearance_star_outline_width, 0);
-        appearance.cornerRounded = a.getBoolean(R.styleable.StarAppearance_star_corner_rounded,
-                false);
-        appearance.cornerRadius = a.getDimensionPixelSize(
-                R.styleable.StarAppearance_star_corner_radius, 0);
-
-        a.recycle();
-
-        applyAppearanceInternal();
+        applyAppearance(StarAppearance.obtain(context, appearanceRes));
     }
 
     public void applyAppearance(StarAppearance appearance) {
-        this.appearance = appearance;
-        applyAppearanceInternal();
+        StarState newState = appearance.getState(state.size);
+        if (newState != state) {
+            state = newState;
+            invalidateSelf();
+        }
     }
 
     StarAppearance getAppearance() {
-        return this.appearance;
+        return state.appearance;
     }
 
-    private void applyAppearanceInternal() {
-        switch (appearance.somatotype) {
-            case RatingBar.SOMATOTYPE_THIN:
-                this.innerRadius = radius / 2.5f;
-                break;
-            case RatingBar.SOMATOTYPE_FAT:
-                this.innerRadius = radius / 2f;
-                break;
+    /**
+     * The geometry and the appearance of a star. The tint, the alpha and the bounds are kept by
+     * each drawable, so a state can be shared by any number of them.
+     */
+    static final class StarState extends ConstantState {
+        final @Dimension int size;
+        final float radius;
+        final StarAppearance appearance;
+        // Shared with other states through StarGeometry, never modify it.
+        final Path path;
+
+        StarState(int size, StarAppearance appearance) {
+            this.size = size;
+            this.radius = size / 2f;
+            this.appearance = appearance;
+
+            // The stroke and the corner effect are baked into the shared outline, so the paint
+            // always fills.
+            int outlineWidth = appearance.hollowed ? Math.max(appearance.outlineWidth, 1) : 0;
+            int cornerRadius = appearance.cornerRounded ? appearance.cornerRadius : 0;
+            this.path = StarGeometry.obtain(size, appearance.shape, appearance.pointCount,
+                    appearance.pathData, appearance.somatotype, cornerRadius, outlineWidth);
         }
 
-        if (appearance.hollowed) {
-            paint.setStyle(Paint.Style.STROKE);
-            paint.setStrokeWidth(appearance.outlineWidth);
-        } else {
-            paint.setStyle(Paint.Style.FILL);
-            paint.setStrokeWidth(0);
+        @NonNull
+        @Override
+        public Drawable newDrawable() {
+            return new StarDrawable(this);
         }
 
-        if (appearance.cornerRounded) {
-            paint.setPathEffect(new CornerPathEffect(appearance.cornerRadius));
-        } else {
-            paint.setPathEffect(null);
+        @Override
+        public int getChangingConfigurations() {
+            return 0;
         }
     }
 
-    static class StarAppearance {
-        @RatingBar.StarSomatotype int somatotype;
-        boolean hollowed;
-        @Dimension int outlineWidth;
-        boolean cornerRounded;
-        int cornerRadius;
+    static final class StarAppearance {
+        static final int DEFAULT_POINT_COUNT = 5;
+        static final StarAppearance DEFAULT = new StarAppearance(RatingBar.SHAPE_STAR,
+                DEFAULT_POINT_COUNT, null, RatingBar.SOMATOTYPE_THIN, false, 0, false, 0);
+
+        // Appearances resolved from style resources, shared by the whole process.
+        private static final SparseArray<StarAppearance> CACHE = new SparseArray<>();
+
+        final @RatingBar.StarShape int shape;
+        final int pointCount;
+        final String pathData;
+        final @RatingBar.StarSomatotype int somatotype;
+        final boolean hollowed;
+        final @Dimension int outlineWidth;
+        final boolean cornerRounded;
+        final int cornerRadius;
+
+        // The density the dimensions were resolved with, 0 if they were not resolved.
+        private float density;
+        private StarAppearance filled;
+        private final SparseArray<StarState> states = new SparseArray<>();
+
+        StarAppearance(@RatingBar.StarShape int shape, int pointCount, @Nullable String pathData,
+                       @RatingBar.StarSomatotype int somatotype, boolean hollowed,
+                       @Dimension int outlineWidth, boolean cornerRounded, int cornerRadius) {
+            if (shape == RatingBar.SHAPE_STAR && pointCount < 3) {
+                throw new IllegalArgumentException("A star needs at least 3 points, but got "
+                        + pointCount);
+            }
+            if (shape == RatingBar.SHAPE_PATH && (pathData == null || pathData.isEmpty())) {
+                throw new IllegalArgumentException("The path shape needs path data");
+            }
+            this.shape = shape;
+            this.pointCount = pointCount;
+            this.pathData = pathData;
+            this.somatotype = somatotype;
+            this.hollowed = hollowed;
+            this.outlineWidth = outlineWidth;
+            this.cornerRounded = cornerRounded;
+            this.cornerRadius = cornerRadius;
+        }
+
+        /**
+         * Returns the appearance described by the style resource, resolving it only the first
+         * time, or again when the display density changed. No resource returns the default
+         * appearance without resolving anything.
+         */
+        static StarAppearance obtain(Context context, @StyleRes int appearanceRes) {
+            if (appearanceRes == 0) {
+                return DEFAULT;
+            }
+            float density = context.getResources().getDisplayMetrics().density;
+            synchronized (CACHE) {
+                StarAppearance appearance = CACHE.get(appearanceRes);
+                if (appearance == null || appearance.density != density) {
+                    appearance = resolve(context, appearanceRes);
+                    appearance.density = density;
+                    CACHE.put(appearanceRes, appearance);
+                }
+                return appearance;
+            }
+        }
+
+        private static StarAppearance resolve(Context context, @StyleRes int appearanceRes) {
+            TypedArray a = context.obtainStyledAttributes(appearanceRes,
+                    R.styleable.StarAppearance);
+
+            StarAppearance appearance = new StarAppearance(
+                    a.getInt(R.styleable.StarAppearance_star_shape, RatingBar.SHAPE_STAR),
+                    a.getInt(R.styleable.StarAppearance_star_point_count, DEFAULT_POINT_COUNT),
+                    a.getString(R.styleable.StarAppearance_star_path_data),
+                    a.getInt(R.styleable.StarAppearance_star_somatotype, 0),
+                    a.getBoolean(R.styleable.StarAppearance_star_hollowed, false),
+                    a.getDimensionPixelSize(R.styleable.StarAppearance_star_outline_width, 0),
+                    a.getBoolean(R.styleable.StarAppearance_star_corner_rounded, false),
+                    a.getDimensionPixelSize(R.styleable.StarAppearance_star_corner_radius, 0));
+
+            a.recycle();
+            return appearance;
+        }
+
+        /**
+         * Returns the same appearance without the hollow, used for the top layer of a rating.
+         */
+        StarAppearance filled() {
+            if (!hollowed) {
+                return this;
+            }
+            synchronized (states) {
+                if (filled == null) {
+                    filled = new StarAppearance(shape, pointCount, pathData, somatotype, false,
+                            outlineWidth, cornerRounded, cornerRadius);
+                }
+                return filled;
+            }
+        }
+
+        StarState getState(int size) {
+            synchronized (states) {
+                StarState state = states.get(size);
+                if (state == null) {
+                    state = new StarState(size, this);
+                    states.put(size, state);
+                }
+                return state;
+            }
+        }
+
+        /**
+         * Forgets the resolved appearances and the star states of the default one, so that the
+         * next views resolve them again, as the first views of a process do.
+         */
+        static void clearCache() {
+            synchronized (CACHE) {
+                CACHE.clear();
+            }
+            synchronized (DEFAULT.states) {
+                DEFAULT.states.clear();
+            }
+        }
     }
 }
@@ -0,0 +1,199 @@
+package io.github.vejei.ratingbar;
+
+import android.graphics.CornerPathEffect;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+
+import androidx.core.graphics.PathParser;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Process-wide cache of star outlines. Each outline is built once for a given shape, size,
+ * somatotype, corner radius and outline width and then shared by every {@link StarDrawable} that
+ * needs it. The cached path is centered at the origin and already has the corner effect and the
+ * stroke applied, so it only needs to be filled when drawn. Path data is parsed only when its
+ * outline is built, custom shapes cost the same as the built-in star afterwards.
+ */
+final class StarGeometry {
+    private static final Map<Key, Path> CACHE = new HashMap<>();
+    private static final Key LOOKUP_KEY = new Key();
+    private static final Paint SCRATCH_PAINT = new Paint();
+    private static final Path SCRATCH_PATH = new Path();
+    private static final Matrix SCRATCH_MATRIX = new Matrix();
+    private static final RectF SCRATCH_BOUNDS = new RectF();
+    private static final RectF SCRATCH_TARGET = new RectF();
+
+    private StarGeometry() {}
+
+    /**
+     * Returns the shared outline for the given parameters. The returned path must not be
+     * modified. A zero {@code outlineWidth} means the star is filled, a zero
+     * {@code cornerRadius} means the corners are sharp. The point count only applies to
+     * {@link RatingBar#SHAPE_STAR} and the path data to {@link RatingBar#SHAPE_PATH}.
+     */
+    static Path obtain(int size, @RatingBar.StarShape int shape, int pointCount, String pathData,
+                       @RatingBar.StarSomatotype int somatotype, int cornerRadius,
+                       int outlineWidth) {
+        synchronized (CACHE) {
+            LOOKUP_KEY.set(size, shape, pointCount, pathData, somatotype, cornerRadius,
+                    outlineWidth);
+            Path path = CACHE.get(LOOKUP_KEY);
+            if (path == null) {
+                path = build(size, shape, pointCount, pathData, somatotype, cornerRadius,
+                        outlineWidth);
+                Key key = new Key();
+                key.set(size, shape, pointCount, pathData, somatotype, cornerRadius,
+                        outlineWidth);
+                CACHE.put(key, path);
+            }
+            return path;
+        }
+    }
+
+    /**
+     * Forgets every outline, so that the next stars build them again, as the first stars of a
+     * process do.
+     */
+    static void clearCache() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    private static Path build(int size, int shape, int pointCount, String pathData,
+                              int somatotype, int cornerRadius, int outlineWidth) {
+        float radius = size / 2f;
+
+        Path outline = SCRATCH_PATH;
+        outline.reset();
+        switch (shape) {
+            case RatingBar.SHAPE_HEART:
+                buildHeart(outline, radius);
+                break;
+            case RatingBar.SHAPE_PATH:
+                buildFromPathData(outline, pathData, radius);
+                break;
+            default:
+                buildStar(outline, pointCount, somatotype, radius);
+                break;
+        }
+
+        Paint paint = SCRATCH_PAINT;
+        paint.setStrokeJoin(Paint.Join.MITER);
+        if (outlineWidth > 0) {
+            paint.setStyle(Paint.Style.STROKE);
+            paint.setStrokeWidth(outlineWidth);
+        } else {
+            paint.setStyle(Paint.Style.FILL);
+            paint.setStrokeWidth(0);
+        }
+        paint.setPathEffect((cornerRadius > 0) ? new CornerPathEffect(cornerRadius) : null);
+
+        Path result = new Path();
+        paint.getFillPath(outline, result);
+        paint.setPathEffect(null);
+        return result;
+    }
+
+    private static void buildStar(Path outline, int pointCount, int somatotype, float radius) {
+        float innerRadius = (somatotype == RatingBar.SOMATOTYPE_FAT) ? radius / 2f : radius / 2.5f;
+        // The first point is the one before the top, so a five-pointed star stays unchanged.
+        double step = 2 * Math.PI / pointCount;
+        double start = Math.PI / 2 - step;
+
+        for (int i = 0; i < pointCount; i++) {
+            double outerAngle = start + i * step;
+            double innerAngle = outerAngle + step / 2;
+            float outerX = (float) (Math.cos(outerAngle) * radius);
+            float outerY = (float) (-Math.sin(outerAngle) * radius);
+            if (i == 0) {
+                outline.moveTo(outerX, outerY);
+            } else {
+                outline.lineTo(outerX, outerY);
+            }
+            outline.lineTo((float) (Math.cos(innerAngle) * innerRadius),
+                    (float) (-Math.sin(innerAngle) * innerRadius));
+        }
+        outline.close();
+    }
+
+    private static void buildHeart(Path outline, float radius) {
+        float r = radius;
+        outline.moveTo(0, 0.9f * r);
+        outline.cubicTo(-0.6f * r, 0.45f * r, -r, 0.05f * r, -r, -0.4f * r);
+        outline.cubicTo(-r, -0.75f * r, -0.75f * r, -0.95f * r, -0.5f * r, -0.95f * r);
+        outline.cubicTo(-0.25f * r, -0.95f * r, -0.05f * r, -0.8f * r, 0, -0.55f * r);
+        outline.cubicTo(0.05f * r, -0.8f * r, 0.25f * r, -0.95f * r, 0.5f * r, -0.95f * r);
+        outline.cubicTo(0.75f * r, -0.95f * r, r, -0.75f * r, r, -0.4f * r);
+        outline.cubicTo(r, 0.05f * r, 0.6f * r, 0.45f * r, 0, 0.9f * r);
+        outline.close();
+    }
+
+    private static void buildFromPathData(Path outline, String pathData, float radius) {
+        Path parsed = PathParser.createPathFromPathData(pathData);
+        outline.set(parsed);
+
+        // The outline is scaled to fit the star, whatever the viewport of the path data was.
+        RectF bounds = SCRATCH_BOUNDS;
+        outline.computeBounds(bounds, true);
+        if (bounds.isEmpty()) {
+            return;
+        }
+        SCRATCH_TARGET.set(-radius, -radius, radius, radius);
+        SCRATCH_MATRIX.setRectToRect(bounds, SCRATCH_TARGET, Matrix.ScaleToFit.CENTER);
+        outline.transform(SCRATCH_MATRIX);
+    }
+
+    private static final class Key {
+        int size;
+        int shape;
+        int pointCount;
+        String pathData;
+        int somatotype;
+        int cornerRadius;
+        int outlineWidth;
+
+        void set(int size, int shape, int pointCount, String pathData, int somatotype,
+                 int cornerRadius, int outlineWidth) {
+            this.size = size;
+            this.shape = shape;
+            this.pointCount = pointCount;
+            this.pathData = pathData;
+            this.somatotype = somatotype;
+            this.cornerRadius = cornerRadius;
+            this.outlineWidth = outlineWidth;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return size == key.size && shape == key.shape && pointCount == key.pointCount
+                    && ((pathData == null) ? key.pathData == null
+                            : pathData.equals(key.pathData))
+                    && somatotype == key.somatotype
+                    && cornerRadius == key.cornerRadius && outlineWidth == key.outlineWidth;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = size;
+            result = 31 * result + shape;
+            result = 31 * result + pointCount;
+            result = 31 * result + ((pathData != null) ? pathData.hashCode() : 0);
+            result = 31 * result + somatotype;
+            result = 31 * result + cornerRadius;
+            result = 31 * result + outlineWidth;
+            return result;
+        }
+    }
+}
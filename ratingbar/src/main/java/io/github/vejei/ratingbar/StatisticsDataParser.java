@@ -0,0 +1,120 @@
+package io.github.vejei.ratingbar;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Parses the {@code statistics_data} attribute, a comma separated list of values such as
+ * {@code "0.5, 0.3, 0.1, 0.1, 0"}. Whitespace is allowed around the values and trailing commas
+ * are ignored. A value may be:
+ * <ul>
+ *     <li>a fraction, e.g. {@code 0.25},</li>
+ *     <li>a percentage, e.g. {@code 25%} or {@code 12.5%},</li>
+ *     <li>an integer count, e.g. {@code 120}. When every value is an integer count the result
+ *     is normalized by the total.</li>
+ * </ul>
+ */
+final class StatisticsDataParser {
+    private static final int MAX_SIGNIFICANT_DIGITS = 18;
+
+    private StatisticsDataParser() {}
+
+    @NonNull
+    static float[] parse(@NonNull CharSequence text) {
+        // Empty values at the end are dropped, as String.split() did.
+        int length = text.length();
+        while (length > 0 && (text.charAt(length - 1) == ','
+                || Character.isWhitespace(text.charAt(length - 1)))) {
+            length--;
+        }
+        int valueCount = 1;
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) == ',') {
+                valueCount++;
+            }
+        }
+
+        float[] result = new float[valueCount];
+        boolean allCounts = true;
+        double total = 0;
+        int index = 0;
+        int position = 0;
+
+        for (int valueIndex = 0; valueIndex < valueCount; valueIndex++) {
+            position = skipWhitespace(text, position, length);
+
+            long mantissa = 0;
+            int digits = 0;
+            int scale = 0;
+            boolean hasDigit = false;
+            boolean fraction = false;
+            boolean percentage = false;
+
+            while (position < length) {
+                char c = text.charAt(position);
+                if (c >= '0' && c <= '9') {
+                    hasDigit = true;
+                    if (digits < MAX_SIGNIFICANT_DIGITS) {
+                        if (mantissa != 0 || c != '0') {
+                            digits++;
+                        }
+                        mantissa = mantissa * 10 + (c - '0');
+                        if (fraction) {
+                            scale++;
+                        }
+                    } else if (!fraction) {
+                        // Too many digits to keep, the integer part still has to grow.
+                        scale--;
+                    }
+                } else if (c == '.' && !fraction) {
+                    fraction = true;
+                } else {
+                    break;
+                }
+                position++;
+            }
+            if (!hasDigit) {
+                throw invalidData(text, position);
+            }
+            if (position < length && text.charAt(position) == '%') {
+                percentage = true;
+                position++;
+            }
+
+            position = skipWhitespace(text, position, length);
+            if (position < length) {
+                if (text.charAt(position) != ',') {
+                    throw invalidData(text, position);
+                }
+                position++;
+            }
+
+            double value = (scale >= 0) ? mantissa / Math.pow(10, scale)
+                    : mantissa * Math.pow(10, -scale);
+            if (percentage) {
+                value /= 100;
+            }
+            allCounts &= !fraction && !percentage;
+            total += value;
+            result[index++] = (float) value;
+        }
+
+        if (allCounts && total > 0) {
+            for (int i = 0; i < result.length; i++) {
+                result[i] = (float) (result[i] / total);
+            }
+        }
+        return result;
+    }
+
+    private static int skipWhitespace(CharSequence text, int position, int end) {
+        while (position < end && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static IllegalArgumentException invalidData(CharSequence text, int position) {
+        return new IllegalArgumentException("The statistics data text must match the pattern: "
+                + "a, b, c, d, e, but got \"" + text + "\" (at index " + position + ")");
+    }
+}
@@ -0,0 +1,170 @@
+package io.github.vejei.ratingbar;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.drawable.Drawable;
+
+/**
+ * The immutable geometry of a statistics chart, computed once per change of the configuration
+ * and only read while drawing. Positions are relative to the top left corner of the content,
+ * and the per-row values are kept in flat arrays indexed by row, the first row being the one
+ * with the most stars.
+ */
+final class StatisticsLayout {
+    final int rowCount;
+    final boolean layoutRtl;
+    final float width;
+    final float height;
+    final float digitalColumnWidth;
+
+    final int starSize;
+    final int starMargin;
+    // The position of the first star of each row, x and y interleaved.
+    final float[] starOffsets;
+
+    final float[] rowCenterY;
+    // The track of each bar, left, top, right and bottom interleaved.
+    final float[] barRects;
+    // Where the fill of the bars starts, and its signed length for a value of 1.
+    final float barStart;
+    final float barLength;
+    final float barWidth;
+    final float barHeight;
+    final float barCornerRadius;
+
+    final float textX;
+    final float[] textBaselineY;
+
+    /**
+     * @param barWidth the width of the bars, or {@link StatisticsSpec#UNSET} to derive it.
+     * @param barHeight the height of the bars, or {@link StatisticsSpec#UNSET} to derive it.
+     * @param barCornerRadius the corner radius, or {@link StatisticsSpec#UNSET} to derive it.
+     * @param digitalColumnWidth the width of the labels, ignored if the column is disabled.
+     */
+    StatisticsLayout(int rowCount, int starSize, int starMargin, int rowMargin, int columnMargin,
+                     float barWidth, float barHeight, boolean barCornerRounded,
+                     float barCornerRadius, boolean digitalColumnDisabled,
+                     float digitalColumnWidth, float textHeight, float textCenterY,
+                     boolean layoutRtl) {
+        this.rowCount = Math.max(rowCount, 0);
+        this.layoutRtl = layoutRtl;
+        this.starSize = starSize;
+        this.starMargin = starMargin;
+
+        rowCount = this.rowCount;
+        int totalRowMargin = rowMargin * (rowCount - 1);
+        float starColumnWidth = 0;
+        float starColumnHeight = 0;
+        if (rowCount > 0) {
+            starColumnWidth = starSize * rowCount + starMargin * (rowCount - 1);
+            starColumnHeight = starSize * rowCount + totalRowMargin;
+        }
+
+        this.barWidth = !Float.isNaN(barWidth) ? barWidth : starColumnWidth * 2.3f;
+        this.barHeight = Math.min(!Float.isNaN(barHeight) ? barHeight
+                : Math.round(starSize * 0.6f), starSize);
+        if (!barCornerRounded) {
+            this.barCornerRadius = 0;
+        } else if (!Float.isNaN(barCornerRadius)) {
+            this.barCornerRadius = barCornerRadius;
+        } else {
+            this.barCornerRadius = this.barHeight / 2f;
+        }
+        float barColumnHeight = this.barHeight * rowCount + totalRowMargin;
+
+        float contentWidth, contentHeight;
+        if (!digitalColumnDisabled) {
+            float digitalColumnHeight = textHeight * rowCount + totalRowMargin;
+            this.digitalColumnWidth = digitalColumnWidth;
+            contentWidth = starColumnWidth + this.barWidth + columnMargin * 2 + digitalColumnWidth;
+            contentHeight = Math.max(Math.max(starColumnHeight, barColumnHeight),
+                    digitalColumnHeight);
+        } else {
+            this.digitalColumnWidth = 0;
+            contentWidth = starColumnWidth + this.barWidth + columnMargin;
+            contentHeight = Math.max(starColumnHeight, barColumnHeight);
+        }
+        width = Math.round(contentWidth);
+        height = Math.round(contentHeight);
+
+        float starColumnStart;
+        float barEnd;
+        if (layoutRtl) {
+            starColumnStart = width;
+            barStart = starColumnStart - starColumnWidth - columnMargin;
+            barLength = -this.barWidth;
+            barEnd = barStart + barLength;
+            textX = barEnd - columnMargin;
+        } else {
+            starColumnStart = 0;
+            barStart = starColumnStart + starColumnWidth + columnMargin;
+            barLength = this.barWidth;
+            barEnd = barStart + barLength;
+            textX = barEnd + columnMargin;
+        }
+
+        // The star column is centered in the content.
+        float offsetY = Math.abs(starColumnHeight / 2f - height / 2f);
+
+        starOffsets = new float[rowCount * 2];
+        rowCenterY = new float[rowCount];
+        barRects = new float[rowCount * 4];
+        textBaselineY = new float[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            float rowTop = offsetY + (starSize + rowMargin) * i;
+            float centerY = rowTop + starSize / 2f;
+
+            // Rows are aligned to the side of the bars.
+            starOffsets[i * 2] = layoutRtl ? starColumnStart - starColumnWidth
+                    : starColumnStart + (starSize + starMargin) * i;
+            starOffsets[i * 2 + 1] = rowTop;
+
+            rowCenterY[i] = centerY;
+
+            barRects[i * 4] = Math.min(barStart, barEnd);
+            barRects[i * 4 + 1] = centerY - this.barHeight / 2f;
+            barRects[i * 4 + 2] = Math.max(barStart, barEnd);
+            barRects[i * 4 + 3] = centerY + this.barHeight / 2f;
+
+            textBaselineY[i] = centerY - textCenterY;
+        }
+    }
+
+    void drawStarColumn(Canvas canvas, Drawable starDrawable) {
+        for (int i = 0; i < rowCount; i++) {
+            int starNumber = rowCount - i;
+            canvas.save();
+            canvas.translate(starOffsets[i * 2], starOffsets[i * 2 + 1]);
+            for (int j = 0; j < starNumber; j++) {
+                starDrawable.draw(canvas);
+                canvas.translate(starSize + starMargin, 0);
+            }
+            canvas.restore();
+        }
+    }
+
+    void drawBarTracks(Canvas canvas, Paint paint) {
+        for (int i = 0; i < rowCount; i++) {
+            canvas.drawRoundRect(barRects[i * 4], barRects[i * 4 + 1], barRects[i * 4 + 2],
+                    barRects[i * 4 + 3], barCornerRadius, barCornerRadius, paint);
+        }
+    }
+
+    /**
+     * Draws the bars filled up to the values {@code values[offset]} to
+     * {@code values[offset + rowCount - 1]}, missing values being 0. The fill is cut by a shader
+     * rather than a clip.
+     */
+    void drawBars(Canvas canvas, Paint paint, FillShader fillShader, float[] values, int offset) {
+        for (int i = 0; i < rowCount; i++) {
+            float value = (offset + i < values.length) ? values[offset + i] : 0;
+            if (!(value > 0)) {
+                continue;
+            }
+            fillShader.apply(paint, barStart + barLength * value, layoutRtl);
+            canvas.drawRoundRect(barRects[i * 4], barRects[i * 4 + 1], barRects[i * 4 + 2],
+                    barRects[i * 4 + 3], barCornerRadius, barCornerRadius, paint);
+        }
+        paint.setShader(null);
+    }
+}
@@ -0,0 +1,314 @@
+package io.github.vejei.ratingbar;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Draws many rating distributions into any {@link Canvas} without a {@link StatisticsView} each.
+ * The paints, the geometry and the star column are shared by every histogram. The star column
+ * and the bar tracks are rendered into a single cell layer once, and each histogram only adds
+ * its bars and labels on top of it.
+ *
+ * <p>The data is a flat array with a stride of {@link #getRowCount()}, the histogram {@code h}
+ * holding the values {@code data[h * rowCount]} to {@code data[h * rowCount + rowCount - 1]}, or
+ * an array of per-histogram arrays. Histograms are laid out in a grid of
+ * {@link #setColumnCount(int)} columns, and only the cells intersecting the clip of the canvas
+ * are drawn.</p>
+ */
+public final class StatisticsRenderer {
+    private final Drawable starDrawable;
+    private final int starSize;
+    private final int starMargin;
+    private final int rowCount;
+    private final int rowMargin;
+    private final int columnMargin;
+    private final boolean digitalColumnDisabled;
+    private final int percentageBarColor;
+    private final int percentageBarTrackColor;
+    private final float percentageBarWidth;
+    private final float percentageBarHeight;
+    private final boolean percentageBarCornerRounded;
+    private final float percentageBarCornerRadius;
+    private final float stableTextWidth;
+    private final float stableTextHeight;
+    private final float stableTextCenterY;
+
+    private StatisticsLayout layout;
+    private int cellWidth;
+    private int cellHeight;
+
+    private int columnCount = 1;
+    private int horizontalSpacing;
+    private int verticalSpacing;
+
+    private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final FillShader barFillShader = new FillShader();
+    private final char[] label = new char[PercentageFormatter.MAX_LENGTH];
+    private final Rect clipBounds = new Rect();
+
+    private Bitmap cellLayer;
+    private boolean cellLayerDirty = true;
+
+    /**
+     * Creates a renderer drawing histograms with the configuration of the spec. The data of the
+     * spec is ignored, each draw call passes its own.
+     */
+    public StatisticsRenderer(@NonNull Context context, @NonNull StatisticsSpec spec) {
+        if (spec.starDrawable != null) {
+            starDrawable = spec.starDrawable.getConstantState().newDrawable();
+        } else {
+            starDrawable = StarDrawable.StarAppearance.obtain(context, spec.starAppearanceRes)
+                    .getState(spec.starSize).newDrawable();
+        }
+        starDrawable.setBounds(0, 0, spec.starSize, spec.starSize);
+        starDrawable.setTintList(spec.starTintList);
+        if (RatingBarMetrics.enabled) {
+            RatingBarMetrics.reportDrawableCreated(starDrawable);
+        }
+
+        starSize = spec.starSize;
+        starMargin = spec.starMargin;
+        rowCount = spec.rowCount;
+        rowMargin = spec.rowMargin;
+        columnMargin = spec.columnMargin;
+        digitalColumnDisabled = spec.digitalColumnDisabled;
+        percentageBarColor = spec.percentageBarColor;
+        percentageBarTrackColor = spec.percentageBarTrackColor;
+        percentageBarWidth = spec.percentageBarWidth;
+        percentageBarHeight = spec.percentageBarHeight;
+        percentageBarCornerRounded = spec.percentageBarCornerRounded;
+        percentageBarCornerRadius = spec.percentageBarCornerRadius;
+
+        if (!digitalColumnDisabled) {
+            Rect textBounds = new Rect();
+            spec.digitalTextAppearance.applyTo(textPaint);
+            textPaint.getTextBounds(StatisticsView.WIDEST_LABEL, 0,
+                    StatisticsView.WIDEST_LABEL.length(), textBounds);
+            stableTextWidth = textBounds.width();
+            stableTextHeight = textBounds.height();
+            stableTextCenterY = textBounds.exactCenterY();
+        } else {
+            stableTextWidth = 0;
+            stableTextHeight = 0;
+            stableTextCenterY = 0;
+        }
+
+        computeLayout(false);
+    }
+
+    private void computeLayout(boolean layoutRtl) {
+        // Every label is placed in the room of the widest normalized one.
+        layout = new StatisticsLayout(rowCount, starSize, starMargin, rowMargin, columnMargin,
+                percentageBarWidth, percentageBarHeight, percentageBarCornerRounded,
+                percentageBarCornerRadius, digitalColumnDisabled, stableTextWidth,
+                stableTextHeight, stableTextCenterY, layoutRtl);
+        cellWidth = Math.round(layout.width);
+        cellHeight = Math.round(layout.height);
+        textPaint.setTextAlign(layoutRtl ? Paint.Align.RIGHT : Paint.Align.LEFT);
+        cellLayerDirty = true;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the width of a single histogram.
+     */
+    public int getCellWidth() {
+        return cellWidth;
+    }
+
+    /**
+     * Returns the height of a single histogram.
+     */
+    public int getCellHeight() {
+        return cellHeight;
+    }
+
+    public boolean isLayoutRtl() {
+        return layout.layoutRtl;
+    }
+
+    public void setLayoutRtl(boolean layoutRtl) {
+        if (layout.layoutRtl != layoutRtl) {
+            computeLayout(layoutRtl);
+        }
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public void setColumnCount(int columnCount) {
+        if (columnCount < 1) {
+            throw new IllegalArgumentException("The column count must be positive, but got "
+                    + columnCount);
+        }
+        this.columnCount = columnCount;
+    }
+
+    /**
+     * Sets the space between the cells of the grid.
+     */
+    public void setSpacing(int horizontalSpacing, int verticalSpacing) {
+        this.horizontalSpacing = horizontalSpacing;
+        this.verticalSpacing = verticalSpacing;
+    }
+
+    /**
+     * Returns the width of the grid, a host view can use it to measure itself.
+     */
+    public int getGridWidth(int histogramCount) {
+        int columns = Math.min(histogramCount, columnCount);
+        return (columns <= 0) ? 0 : columns * cellWidth + (columns - 1) * horizontalSpacing;
+    }
+
+    /**
+     * Returns the height of the grid, a host view can use it to measure itself.
+     */
+    public int getGridHeight(int histogramCount) {
+        int rows = (histogramCount + columnCount - 1) / columnCount;
+        return (rows <= 0) ? 0 : rows * cellHeight + (rows - 1) * verticalSpacing;
+    }
+
+    /**
+     * Draws a single histogram, made of the {@code rowCount} values of {@code data} starting at
+     * {@code offset}, with its top left corner at the given position.
+     */
+    public void draw(@NonNull Canvas canvas, @NonNull float[] data, int offset, float left,
+                     float top) {
+        drawCellLayer(canvas, left, top);
+        drawCellContent(canvas, data, offset, left, top);
+    }
+
+    /**
+     * Draws the histograms of a flat array, {@code data.length / rowCount} of them, as a grid
+     * with its top left corner at the given position.
+     */
+    public void drawGrid(@NonNull Canvas canvas, @NonNull float[] data, float left, float top) {
+        if (rowCount <= 0) {
+            return;
+        }
+        drawGrid(canvas, data, null, data.length / rowCount, left, top);
+    }
+
+    /**
+     * Draws one histogram per array as a grid with its top left corner at the given position.
+     */
+    public void drawGrid(@NonNull Canvas canvas, @NonNull float[][] data, float left, float top) {
+        drawGrid(canvas, null, data, data.length, left, top);
+    }
+
+    private void drawGrid(Canvas canvas, float[] flatData, float[][] data, int histogramCount,
+                          float left, float top) {
+        if (histogramCount <= 0 || cellWidth <= 0 || cellHeight <= 0) {
+            return;
+        }
+        if (!canvas.getClipBounds(clipBounds)) {
+            return;
+        }
+
+        int columnPitch = cellWidth + horizontalSpacing;
+        int rowPitch = cellHeight + verticalSpacing;
+        int gridRows = (histogramCount + columnCount - 1) / columnCount;
+
+        // Only the cells intersecting the clip are drawn.
+        int firstRow = Math.max((int) Math.floor((clipBounds.top - top) / rowPitch), 0);
+        int lastRow = Math.min((int) Math.floor((clipBounds.bottom - top) / rowPitch),
+                gridRows - 1);
+        int firstColumn, lastColumn;
+        if (layout.layoutRtl) {
+            float right = left + getGridWidth(histogramCount);
+            firstColumn = Math.max((int) Math.floor((right - clipBounds.right) / columnPitch), 0);
+            lastColumn = Math.min((int) Math.floor((right - clipBounds.left) / columnPitch),
+                    columnCount - 1);
+        } else {
+            firstColumn = Math.max((int) Math.floor((clipBounds.left - left) / columnPitch), 0);
+            lastColumn = Math.min((int) Math.floor((clipBounds.right - left) / columnPitch),
+                    columnCount - 1);
+        }
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            float cellTop = top + row * rowPitch;
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int histogram = row * columnCount + column;
+                if (histogram >= histogramCount) {
+                    break;
+                }
+                float cellLeft = layout.layoutRtl
+                        ? left + getGridWidth(histogramCount) - (column + 1) * cellWidth
+                                - column * horizontalSpacing
+                        : left + column * columnPitch;
+
+                drawCellLayer(canvas, cellLeft, cellTop);
+                if (flatData != null) {
+                    drawCellContent(canvas, flatData, histogram * rowCount, cellLeft, cellTop);
+                } else {
+                    drawCellContent(canvas, data[histogram], 0, cellLeft, cellTop);
+                }
+            }
+        }
+    }
+
+    private void drawCellLayer(Canvas canvas, float left, float top) {
+        if (cellWidth <= 0 || cellHeight <= 0) {
+            return;
+        }
+        if (cellLayer == null) {
+            cellLayer = Bitmap.createBitmap(cellWidth, cellHeight, Bitmap.Config.ARGB_8888);
+            cellLayerDirty = true;
+        }
+        if (cellLayerDirty) {
+            cellLayer.eraseColor(Color.TRANSPARENT);
+            drawStaticContent(new Canvas(cellLayer));
+            cellLayerDirty = false;
+        }
+        canvas.drawBitmap(cellLayer, left, top, null);
+    }
+
+    private void drawStaticContent(Canvas canvas) {
+        layout.drawStarColumn(canvas, starDrawable);
+
+        paint.setColor(percentageBarTrackColor);
+        layout.drawBarTracks(canvas, paint);
+    }
+
+    private void drawCellContent(Canvas canvas, float[] data, int offset, float left,
+                                 float top) {
+        canvas.save();
+        canvas.translate(left, top);
+
+        paint.setColor(percentageBarColor);
+        layout.drawBars(canvas, paint, barFillShader, data, offset);
+
+        if (!digitalColumnDisabled) {
+            for (int i = 0; i < rowCount; i++) {
+                float value = (offset + i < data.length) ? data[offset + i] : 0;
+                int length = PercentageFormatter.format(value, label);
+                canvas.drawText(label, 0, length, layout.textX, layout.textBaselineY[i],
+                        textPaint);
+            }
+        }
+        canvas.restore();
+    }
+
+    /**
+     * Releases the cell layer, it is created again by the next draw.
+     */
+    public void release() {
+        if (cellLayer != null) {
+            cellLayer.recycle();
+            cellLayer = null;
+        }
+        cellLayerDirty = true;
+    }
+}
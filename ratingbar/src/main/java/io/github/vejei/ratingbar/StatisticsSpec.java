@@ -0,0 +1,316 @@
+package io.github.vejei.ratingbar;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.TypedArray;
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.util.DisplayMetrics;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.StyleRes;
+
+/**
+ * The configuration of a {@link StatisticsView}. A spec is resolved from a style once, including
+ * its digital column text appearance and statistics data, and can then be used to create any
+ * number of views with {@link StatisticsView#StatisticsView(Context, StatisticsSpec)}, which does
+ * not touch the theme or the styled attributes.
+ */
+public final class StatisticsSpec {
+    /**
+     * The value of a dimension that is derived from the other ones unless it is set. It is NaN
+     * so that it can't be mistaken for a dimension, check it with {@link Float#isNaN(float)}.
+     */
+    public static final float UNSET = Float.NaN;
+
+    final Drawable starDrawable;
+    final int starSize;
+    final int starMargin;
+    final ColorStateList starTintList;
+    final @StyleRes int starAppearanceRes;
+    final int rowCount;
+    final int rowMargin;
+    final int columnMargin;
+    final boolean digitalColumnDisabled;
+    final @StyleRes int digitalColumnTextAppearance;
+    final StatisticsView.TextAppearance digitalTextAppearance;
+    final @ColorInt int percentageBarColor;
+    final @ColorInt int percentageBarTrackColor;
+    final float percentageBarWidth;
+    final float percentageBarHeight;
+    final boolean percentageBarCornerRounded;
+    final float percentageBarCornerRadius;
+    final float[] data;
+
+    private StatisticsSpec(Builder builder) {
+        starDrawable = builder.starDrawable;
+        starSize = builder.starSize;
+        starMargin = builder.starMargin;
+        starTintList = builder.starTintList;
+        starAppearanceRes = builder.starAppearanceRes;
+        rowCount = builder.rowCount;
+        rowMargin = builder.rowMargin;
+        columnMargin = builder.columnMargin;
+        digitalColumnDisabled = builder.digitalColumnDisabled;
+        digitalColumnTextAppearance = builder.digitalColumnTextAppearance;
+        digitalTextAppearance = builder.digitalTextAppearance;
+        percentageBarColor = builder.percentageBarColor;
+        percentageBarTrackColor = builder.percentageBarTrackColor;
+        percentageBarWidth = builder.percentageBarWidth;
+        percentageBarHeight = builder.percentageBarHeight;
+        percentageBarCornerRounded = builder.percentageBarCornerRounded;
+        percentageBarCornerRadius = builder.percentageBarCornerRadius;
+        data = (builder.data != null) ? builder.data.clone() : null;
+    }
+
+    static StatisticsSpec from(Context context, TypedArray a) {
+        Builder builder = new Builder();
+
+        builder.starDrawable = a.getDrawable(R.styleable.StatisticsView_star);
+        builder.starSize = a.getDimensionPixelSize(R.styleable.StatisticsView_star_size, 0);
+        builder.starMargin = a.getDimensionPixelSize(R.styleable.StatisticsView_star_margin, 0);
+        builder.starTintList = a.getColorStateList(R.styleable.StatisticsView_star_tint);
+
+        if (builder.starDrawable == null) {
+            builder.starAppearanceRes = a.getResourceId(
+                    R.styleable.StatisticsView_star_appearance,
+                    R.style.StatisticsViewStarAppearance);
+        }
+
+        builder.setRowCount(a.getInteger(R.styleable.StatisticsView_row_count, 0));
+        builder.rowMargin = a.getDimensionPixelSize(R.styleable.StatisticsView_row_margin, 0);
+        builder.columnMargin = a.getDimensionPixelSize(R.styleable.StatisticsView_column_margin,
+                0);
+        builder.digitalColumnDisabled = a.getBoolean(
+                R.styleable.StatisticsView_column_digital_disabled, false);
+        if (!builder.digitalColumnDisabled) {
+            builder.setDigitalColumnTextAppearance(context, a.getResourceId(
+                    R.styleable.StatisticsView_column_digital_text_appearance,
+                    R.style.StatisticsViewDigitalColumnTextAppearance));
+        }
+
+        builder.percentageBarColor = a.getColor(R.styleable.StatisticsView_percentage_bar_color,
+                -1);
+        builder.percentageBarTrackColor = a.getColor(
+                R.styleable.StatisticsView_percentage_bar_track_color, -1);
+        if (a.hasValue(R.styleable.StatisticsView_percentage_bar_width)) {
+            builder.percentageBarWidth = a.getDimensionPixelSize(
+                    R.styleable.StatisticsView_percentage_bar_width, 0);
+        }
+        if (a.hasValue(R.styleable.StatisticsView_percentage_bar_height)) {
+            builder.percentageBarHeight = a.getDimensionPixelSize(
+                    R.styleable.StatisticsView_percentage_bar_height, 0);
+        }
+        builder.percentageBarCornerRounded = a.getBoolean(
+                R.styleable.StatisticsView_percentage_bar_corner_rounded, true);
+        if (a.hasValue(R.styleable.StatisticsView_percentage_bar_corner_radius)) {
+            builder.percentageBarCornerRadius = a.getDimensionPixelSize(
+                    R.styleable.StatisticsView_percentage_bar_corner_radius, 0);
+        }
+
+        String statisticsDataText = a.getString(R.styleable.StatisticsView_statistics_data);
+        if (statisticsDataText != null) {
+            builder.data = StatisticsDataParser.parse(statisticsDataText);
+        }
+
+        return builder.build();
+    }
+
+    public static final class Builder {
+        private Drawable starDrawable;
+        private int starSize;
+        private int starMargin;
+        private ColorStateList starTintList;
+        private @StyleRes int starAppearanceRes;
+        private int rowCount;
+        private int rowMargin;
+        private int columnMargin;
+        private boolean digitalColumnDisabled;
+        private @StyleRes int digitalColumnTextAppearance;
+        private StatisticsView.TextAppearance digitalTextAppearance;
+        private @ColorInt int percentageBarColor = -1;
+        private @ColorInt int percentageBarTrackColor = -1;
+        private float percentageBarWidth = UNSET;
+        private float percentageBarHeight = UNSET;
+        private boolean percentageBarCornerRounded = true;
+        private float percentageBarCornerRadius = UNSET;
+        private float[] data;
+
+        private Builder() {}
+
+        /**
+         * Creates a builder initialized with the default style of {@link StatisticsView}.
+         */
+        public Builder(@NonNull Context context) {
+            this(context, R.style.StatisticsView);
+        }
+
+        /**
+         * Creates a builder initialized with the given style, which is resolved only once here.
+         */
+        public Builder(@NonNull Context context, @StyleRes int styleRes) {
+            TypedArray a = context.getTheme().obtainStyledAttributes(null,
+                    R.styleable.StatisticsView, 0, styleRes);
+            StatisticsSpec spec = from(context, a);
+            a.recycle();
+
+            starDrawable = spec.starDrawable;
+            starSize = spec.starSize;
+            starMargin = spec.starMargin;
+            starTintList = spec.starTintList;
+            starAppearanceRes = spec.starAppearanceRes;
+            rowCount = spec.rowCount;
+            rowMargin = spec.rowMargin;
+            columnMargin = spec.columnMargin;
+            digitalColumnDisabled = spec.digitalColumnDisabled;
+            digitalColumnTextAppearance = spec.digitalColumnTextAppearance;
+            digitalTextAppearance = spec.digitalTextAppearance;
+            percentageBarColor = spec.percentageBarColor;
+            percentageBarTrackColor = spec.percentageBarTrackColor;
+            percentageBarWidth = spec.percentageBarWidth;
+            percentageBarHeight = spec.percentageBarHeight;
+            percentageBarCornerRounded = spec.percentageBarCornerRounded;
+            percentageBarCornerRadius = spec.percentageBarCornerRadius;
+            data = spec.data;
+        }
+
+        /**
+         * Creates a builder initialized with the default style of {@link StatisticsView}
+         * compiled in, with the colors of a light AppCompat theme. Unlike
+         * {@link #Builder(Context)}, no style, resource or theme attribute is resolved, which
+         * keeps it cheap on a cold start.
+         */
+        @NonNull
+        public static Builder withPrecompiledDefaults(@NonNull Context context) {
+            DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+            Builder builder = new Builder();
+
+            builder.starSize = DefaultAppearance.toPixelSize(
+                    DefaultAppearance.STATISTICS_STAR_SIZE_DP, metrics.density);
+            builder.starTintList = DefaultAppearance.getStatisticsStarTintList();
+            // No appearance resource stands for the default star appearance.
+            builder.starAppearanceRes = 0;
+            builder.rowCount = DefaultAppearance.STATISTICS_ROW_COUNT;
+            builder.rowMargin = DefaultAppearance.toPixelSize(
+                    DefaultAppearance.STATISTICS_ROW_MARGIN_DP, metrics.density);
+            builder.columnMargin = DefaultAppearance.toPixelSize(
+                    DefaultAppearance.STATISTICS_COLUMN_MARGIN_DP, metrics.density);
+
+            StatisticsView.TextAppearance textAppearance = new StatisticsView.TextAppearance();
+            textAppearance.textSize = DefaultAppearance.toPixelSize(
+                    DefaultAppearance.DIGITAL_TEXT_SIZE_SP, metrics.scaledDensity);
+            textAppearance.textColor = DefaultAppearance.DIGITAL_TEXT_COLOR;
+            textAppearance.textStyle = Typeface.NORMAL;
+            textAppearance.typefaceIndex = -1;
+            builder.digitalColumnTextAppearance = R.style.StatisticsViewDigitalColumnTextAppearance;
+            builder.digitalTextAppearance = textAppearance;
+
+            builder.percentageBarColor = DefaultAppearance.COLOR_PRIMARY;
+            builder.percentageBarTrackColor = DefaultAppearance.STATISTICS_PRIMARY_COLOR;
+            return builder;
+        }
+
+        public Builder setStarDrawable(@Nullable Drawable starDrawable) {
+            this.starDrawable = starDrawable;
+            return this;
+        }
+
+        public Builder setStarSize(int starSize) {
+            this.starSize = starSize;
+            return this;
+        }
+
+        public Builder setStarMargin(int starMargin) {
+            this.starMargin = starMargin;
+            return this;
+        }
+
+        public Builder setStarTintList(@Nullable ColorStateList starTintList) {
+            this.starTintList = starTintList;
+            return this;
+        }
+
+        public Builder setStarAppearance(@StyleRes int starAppearanceRes) {
+            this.starAppearanceRes = starAppearanceRes;
+            return this;
+        }
+
+        public Builder setRowCount(int rowCount) {
+            this.rowCount = Math.max(rowCount, 0);
+            return this;
+        }
+
+        public Builder setRowMargin(int rowMargin) {
+            this.rowMargin = rowMargin;
+            return this;
+        }
+
+        public Builder setColumnMargin(int columnMargin) {
+            this.columnMargin = columnMargin;
+            return this;
+        }
+
+        public Builder setDigitalColumnDisabled(boolean digitalColumnDisabled) {
+            this.digitalColumnDisabled = digitalColumnDisabled;
+            return this;
+        }
+
+        /**
+         * Sets the text appearance of the digital column, it is resolved here so that the views
+         * created from the spec do not have to.
+         */
+        public Builder setDigitalColumnTextAppearance(@NonNull Context context,
+                                                      @StyleRes int textAppearance) {
+            this.digitalColumnTextAppearance = textAppearance;
+            this.digitalTextAppearance = StatisticsView.TextAppearance.resolve(context,
+                    textAppearance);
+            return this;
+        }
+
+        public Builder setPercentageBarColor(@ColorInt int percentageBarColor) {
+            this.percentageBarColor = percentageBarColor;
+            return this;
+        }
+
+        public Builder setPercentageBarTrackColor(@ColorInt int percentageBarTrackColor) {
+            this.percentageBarTrackColor = percentageBarTrackColor;
+            return this;
+        }
+
+        public Builder setPercentageBarWidth(float percentageBarWidth) {
+            this.percentageBarWidth = percentageBarWidth;
+            return this;
+        }
+
+        public Builder setPercentageBarHeight(float percentageBarHeight) {
+            this.percentageBarHeight = percentageBarHeight;
+            return this;
+        }
+
+        public Builder setPercentageBarCornerRounded(boolean percentageBarCornerRounded) {
+            this.percentageBarCornerRounded = percentageBarCornerRounded;
+            return this;
+        }
+
+        public Builder setPercentageBarCornerRadius(float percentageBarCornerRadius) {
+            this.percentageBarCornerRadius = percentageBarCornerRadius;
+            return this;
+        }
+
+        public Builder setData(@Nullable float[] data) {
+            this.data = data;
+            return this;
+        }
+
+        @NonNull
+        public StatisticsSpec build() {
+            if (!digitalColumnDisabled && digitalTextAppearance == null) {
+                throw new IllegalStateException("The digital column text appearance must be "
+                        + "resolved, call setDigitalColumnTextAppearance() or disable the column");
+            }
+            return new StatisticsSpec(this);
+        }
+    }
+}
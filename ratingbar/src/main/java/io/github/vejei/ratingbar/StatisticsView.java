@@ -4,31 +4,43 @@ import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.res.ColorStateList;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Rect;
+import android.graphics.RenderNode;
 import android.graphics.Typeface;
 import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.Parcel;
 import android.os.Parcelable;
 import android.util.AttributeSet;
+import android.view.Choreographer;
 import android.view.View;
 
 import androidx.annotation.Dimension;
 import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
 import androidx.annotation.StyleRes;
+import androidx.annotation.WorkerThread;
 import androidx.customview.view.AbsSavedState;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
-import java.util.Locale;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 public class StatisticsView extends View {
-    private static final Pattern DATA_PATTERN = Pattern.compile("^[(\\d+(?:\\.\\d+)?),\\s]+$");
+    // The widest label of a normalized value, used to keep the digital column width stable.
+    static final String WIDEST_LABEL = "100.0%";
 
     @IntDef(value = {DEFAULT_TYPEFACE, SANS, SERIF, MONOSPACE})
     @Retention(RetentionPolicy.SOURCE)
@@ -51,40 +63,73 @@ public class StatisticsView extends View {
     private int digitalColumnTextAppearance;
     private int percentageBarColor;
     private int percentageBarTrackColor;
+    // The bar dimensions as they were set, StatisticsSpec.UNSET if they are derived.
     private float percentageBarWidth;
     private float percentageBarHeight;
     private boolean percentageBarCornerRounded;
     private float percentageBarCornerRadius;
-    private String statisticsDataText;
 
     private TextAppearance digitalTextAppearance;
 
     private float[] data;
-    private String[] dataText;
-
-    private float halfViewHeight;
+    // Labels are formatted into reusable buffers, the used length of each one is kept apart.
+    private char[][] dataText;
+    private int[] dataTextLength;
+    private float[] dataTextWidth;
+    // The values the bars show, they differ from the data while an animated feed runs.
+    private float[] barValues;
+    private float[] barAnimationFrom;
+    // Whether the data arrays belong to an adopted PreparedStatistics, they are copied before
+    // being written.
+    private boolean dataShared;
+    private final RatingAnimator.Animation barAnimation = new RatingAnimator.Animation() {
+        @Override
+        void onAnimationFrame(float fraction) {
+            for (int i = 0; i < barValues.length; i++) {
+                barValues[i] = barAnimationFrom[i] + (data[i] - barAnimationFrom[i]) * fraction;
+            }
+            invalidate();
+        }
+    };
 
-    private float starColumnWidth;
-    private float starColumnHeight;
-    private final float barColumnWidth;
-    private final float barColumnHeight;
+    private float stableTextWidth;
+    private float stableTextHeight;
+    private float stableTextCenterY;
 
-    private float starColumnStart;
-    private float starColumnTop;
-    private float barColumnStart;
-    private float barColumnEnd;
-    private float digitalColumnStart;
-    private int topLayerBarSign = 1;
+    // Rebuilt on the next use when it is null, that is after any change of the geometry.
+    private StatisticsLayout layout;
+    // Replaced whenever the geometry or the text appearance is set, which outdates the data
+    // prepared before.
+    private Object configuration = new Object();
 
     private final Rect textBounds = new Rect();
 
+    // The star column and the bar tracks only depend on the geometry, they are rendered once and
+    // reused until the geometry or the appearance changes.
+    private Bitmap staticLayer;
+    private StaticLayerNode staticLayerNode;
+    private boolean staticLayerDirty = true;
+
     private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
     private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final FillShader barFillShader = new FillShader();
 
     private Drawable starDrawable;
 
+    private RatingHistogram histogram;
+    private float[] histogramFractions;
+    private boolean histogramFramePending;
+    private final Choreographer.FrameCallback histogramFrameCallback =
+            new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    histogramFramePending = false;
+                    applyHistogram();
+                }
+            };
+
     public StatisticsView(Context context) {
-        this(context, null);
+        this(context, (AttributeSet) null);
     }
 
     public StatisticsView(Context context, @Nullable AttributeSet attrs) {
@@ -101,344 +146,339 @@ public class StatisticsView extends View {
 
         TypedArray a = context.getTheme().obtainStyledAttributes(attrs, R.styleable.StatisticsView,
                 defStyleAttr, defStyleRes);
-        int totalRowMargin;
+        StatisticsSpec spec = StatisticsSpec.from(context, a);
+        a.recycle();
 
-        starDrawableFromUser = a.getDrawable(R.styleable.StatisticsView_star);
-        starSize = a.getDimensionPixelSize(R.styleable.StatisticsView_star_size, 0);
-        starMargin = a.getDimensionPixelSize(R.styleable.StatisticsView_star_margin, 0);
-        starTintList = a.getColorStateList(R.styleable.StatisticsView_star_tint);
+        applySpec(spec, spec.starDrawable);
+    }
 
-        if (starDrawableFromUser == null) {
-            starAppearanceRes = a.getResourceId(R.styleable.StatisticsView_star_appearance,
-                    R.style.StatisticsViewStarAppearance);
-        }
-        createStarDrawable();
-        applyStarDrawableTint();
+    /**
+     * Creates a view from a spec that was already resolved, skipping all the styled attribute
+     * lookups.
+     */
+    public StatisticsView(Context context, @NonNull StatisticsSpec spec) {
+        super(context);
 
-        rowCount = a.getInteger(R.styleable.StatisticsView_row_count, 0);
-        if (rowCount < 0) {
-            rowCount = 0;
-        }
+        applySpec(spec, spec.starDrawable);
+    }
 
-        data = new float[rowCount];
-        dataText = new String[rowCount];
+    private void applySpec(StatisticsSpec spec, Drawable starDrawable) {
+        starDrawableFromUser = starDrawable;
+        starSize = spec.starSize;
+        starMargin = spec.starMargin;
+        starTintList = spec.starTintList;
+        starAppearanceRes = spec.starAppearanceRes;
+        createStarDrawable();
+        applyStarDrawableTint();
 
-        rowMargin = a.getDimensionPixelSize(R.styleable.StatisticsView_row_margin, 0);
-        totalRowMargin = rowMargin * (rowCount - 1);
+        rowCount = spec.rowCount;
 
-        // Computing the width and height of star column
-        if (rowCount > 0) {
-            starColumnWidth = starSize * rowCount + starMargin * (rowCount - 1);
-            starColumnHeight = starSize * rowCount + totalRowMargin;
-        }
+        allocateData(rowCount);
 
-        columnMargin = a.getDimensionPixelSize(R.styleable.StatisticsView_column_margin, 0);
-        digitalColumnDisabled = a.getBoolean(R.styleable.StatisticsView_column_digital_disabled,
-                false);
+        rowMargin = spec.rowMargin;
+        columnMargin = spec.columnMargin;
+        digitalColumnDisabled = spec.digitalColumnDisabled;
         if (!digitalColumnDisabled) {
-            digitalColumnTextAppearance = a.getResourceId(
-                    R.styleable.StatisticsView_column_digital_text_appearance,
-                    R.style.StatisticsViewDigitalColumnTextAppearance);
-            readTextAppearance();
+            digitalColumnTextAppearance = spec.digitalColumnTextAppearance;
+            digitalTextAppearance = spec.digitalTextAppearance;
             applyTextAppearance();
         }
-        percentageBarColor = a.getColor(R.styleable.StatisticsView_percentage_bar_color,
-                -1);
-        percentageBarTrackColor = a.getColor(R.styleable.StatisticsView_percentage_bar_track_color,
-                -1);
-        if (a.hasValue(R.styleable.StatisticsView_percentage_bar_width)) {
-            percentageBarWidth = a.getDimensionPixelSize(
-                    R.styleable.StatisticsView_percentage_bar_width, 0);
-        } else {
-            percentageBarWidth = starColumnWidth * 2.3f;
+        percentageBarColor = spec.percentageBarColor;
+        percentageBarTrackColor = spec.percentageBarTrackColor;
+        percentageBarWidth = spec.percentageBarWidth;
+        percentageBarHeight = spec.percentageBarHeight;
+        percentageBarCornerRounded = spec.percentageBarCornerRounded;
+        percentageBarCornerRadius = spec.percentageBarCornerRadius;
+
+        if (spec.data != null) {
+            feed(spec.data);
         }
+    }
 
-        if (a.hasValue(R.styleable.StatisticsView_percentage_bar_height)) {
-            percentageBarHeight = a.getDimensionPixelSize(
-                    R.styleable.StatisticsView_percentage_bar_height, 0);
-        } else {
-            percentageBarHeight = Math.round(starSize * 0.6f);
-        }
-        if (percentageBarHeight > starSize) {
-            percentageBarHeight = starSize;
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        boolean measured = RatingBarMetrics.enabled;
+        long startNanos = 0;
+        if (measured) {
+            startNanos = RatingBarMetrics.beginSection(
+                    RatingBarMetrics.SECTION_STATISTICS_MEASURE);
         }
 
-        barColumnWidth = percentageBarWidth;
-        barColumnHeight = percentageBarHeight * rowCount + totalRowMargin;
+        StatisticsLayout layout = getStatisticsLayout();
+        int width = Math.round(layout.width) + getPaddingLeft() + getPaddingRight();
+        int height = Math.round(layout.height) + getPaddingTop() + getPaddingBottom();
 
-        percentageBarCornerRounded = a.getBoolean(
-                R.styleable.StatisticsView_percentage_bar_corner_rounded, true);
+        setMeasuredDimension(resolveSize(width , widthMeasureSpec),
+                resolveSize(height, heightMeasureSpec));
 
-        if (percentageBarCornerRounded) {
-            if (a.hasValue(R.styleable.StatisticsView_percentage_bar_corner_radius)) {
-                percentageBarCornerRadius = a.getDimensionPixelSize(
-                        R.styleable.StatisticsView_percentage_bar_corner_radius, 0);
-            } else {
-                percentageBarCornerRadius = percentageBarHeight / 2f;
-            }
+        if (measured) {
+            RatingBarMetrics.reportMeasure(this, startNanos);
         }
+    }
 
-        statisticsDataText = a.getString(R.styleable.StatisticsView_statistics_data);
-        if (statisticsDataText != null) {
-            float[] resultData = parseStatisticsData();
-            if (resultData != null) {
-                feed(resultData);
-            }
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        staticLayerDirty = true;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (histogramFramePending) {
+            // The frame won't come, the update is applied now so that the view isn't left with
+            // stale bars when it's attached again.
+            histogramFramePending = false;
+            Choreographer.getInstance().removeFrameCallback(histogramFrameCallback);
+            applyHistogram();
         }
+        cancelBarAnimation();
+        releaseStaticLayer();
+    }
 
-        a.recycle();
+    @Override
+    public void invalidateDrawable(@NonNull Drawable drawable) {
+        if (drawable == starDrawable) {
+            staticLayerDirty = true;
+        }
+        super.invalidateDrawable(drawable);
     }
 
     @Override
-    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        int width, height;
-        float margin;
-        float maxTextWidth = 0;
-        int totalTextHeight = 0;
-        float digitalColumnWidth, digitalColumnHeight;
+    protected void onDraw(Canvas canvas) {
+        boolean measured = RatingBarMetrics.enabled;
+        long startNanos = 0;
+        if (measured) {
+            startNanos = RatingBarMetrics.beginSection(RatingBarMetrics.SECTION_STATISTICS_DRAW);
+        }
+        drawStaticLayer(canvas);
 
-        if (!digitalColumnDisabled) {
-            float maxColumnHeight;
+        StatisticsLayout layout = getStatisticsLayout();
+        canvas.save();
+        canvas.translate(computeContentLeft(layout), getPaddingTop());
+
+        // Draw the top layer of the percentage bar.
+        paint.setColor(percentageBarColor);
+        layout.drawBars(canvas, paint, barFillShader, barValues, 0);
 
-            margin = columnMargin * 2;
-            for (String item : dataText) {
-                if (item == null) {
+        // Draw digital column texts.
+        if (!digitalColumnDisabled && (data.length > 0)) {
+            int rows = Math.min(layout.rowCount, dataText.length);
+            for (int i = 0; i < rows; i++) {
+                if (dataText[i] == null) {
                     continue;
                 }
-                textBounds.setEmpty();
-                textPaint.getTextBounds(item, 0, item.length(), textBounds);
-
-                maxTextWidth = Math.max(textBounds.width(), maxTextWidth);
-                totalTextHeight += textBounds.height();
+                canvas.drawText(dataText[i], 0, dataTextLength[i], layout.textX,
+                        layout.textBaselineY[i], textPaint);
             }
-            digitalColumnWidth = maxTextWidth;
-            digitalColumnHeight = totalTextHeight + rowMargin * (rowCount - 1);
-
-            maxColumnHeight = Math.max(Math.max(starColumnHeight, barColumnHeight),
-                    digitalColumnHeight);
-
-            width = Math.round(starColumnWidth + barColumnWidth + margin + digitalColumnWidth);
-            height = Math.round(maxColumnHeight);
-        } else {
-            margin = columnMargin;
-            width = Math.round(starColumnWidth + barColumnWidth + margin);
-            height = Math.round(Math.max(starColumnHeight, barColumnHeight));
         }
+        canvas.restore();
 
-        halfViewHeight = height / 2f;
-        width += getPaddingLeft() + getPaddingRight();
-        height += getPaddingTop() + getPaddingBottom();
-
-        setMeasuredDimension(resolveSize(width , widthMeasureSpec),
-                resolveSize(height, heightMeasureSpec));
+        if (measured) {
+            RatingBarMetrics.reportDraw(this, startNanos);
+        }
     }
 
     @Override
-    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
-        int paddingLeft = getPaddingLeft();
-        int paddingRight = getPaddingRight();
-
-        if (ViewUtils.isLayoutRtl(this)) {
-            textPaint.setTextAlign(Paint.Align.RIGHT);
-            topLayerBarSign = -1;
+    public void invalidate() {
+        super.invalidate();
+        if (RatingBarMetrics.enabled) {
+            RatingBarMetrics.reportInvalidate(this);
+        }
+    }
 
-            starColumnStart = w - paddingRight;
-            barColumnStart = starColumnStart - starColumnWidth - columnMargin;
-            barColumnEnd = barColumnStart - barColumnWidth;
-            digitalColumnStart = barColumnEnd - columnMargin;
-        } else {
-            textPaint.setTextAlign(Paint.Align.LEFT);
-            topLayerBarSign = 1;
+    private void drawStaticLayer(Canvas canvas) {
+        int width = getWidth();
+        int height = getHeight();
+        if (width <= 0 || height <= 0) {
+            return;
+        }
 
-            starColumnStart = paddingLeft;
-            barColumnStart = starColumnStart + starColumnWidth + columnMargin;
-            barColumnEnd = barColumnStart + barColumnWidth;
-            digitalColumnStart = barColumnEnd + columnMargin;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && canvas.isHardwareAccelerated()) {
+            if (staticLayerNode == null) {
+                staticLayerNode = new StaticLayerNode();
+                staticLayerDirty = true;
+            }
+            if (staticLayerDirty) {
+                Canvas nodeCanvas = staticLayerNode.beginRecording(width, height);
+                drawStaticContent(nodeCanvas);
+                staticLayerNode.endRecording();
+                staticLayerDirty = false;
+            }
+            staticLayerNode.draw(canvas);
+            return;
         }
 
-        starColumnTop = getPaddingTop();
+        if (staticLayer == null || staticLayer.getWidth() != width
+                || staticLayer.getHeight() != height) {
+            if (staticLayer != null) {
+                staticLayer.recycle();
+            }
+            staticLayer = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            staticLayerDirty = true;
+        }
+        if (staticLayerDirty) {
+            staticLayer.eraseColor(Color.TRANSPARENT);
+            drawStaticContent(new Canvas(staticLayer));
+            staticLayerDirty = false;
+        }
+        canvas.drawBitmap(staticLayer, 0, 0, null);
     }
 
-    @Override
-    protected void onDraw(Canvas canvas) {
-        canvas.save();
-        canvas.translate(0, Math.abs(starColumnHeight / 2f - halfViewHeight));
+    private void drawStaticContent(Canvas canvas) {
+        StatisticsLayout layout = getStatisticsLayout();
 
         canvas.save();
-        if (ViewUtils.isLayoutRtl(this)) {
-            canvas.translate(starColumnStart - starColumnWidth, starColumnTop);
-        } else {
-            canvas.translate(starColumnStart, starColumnTop);
-        }
+        canvas.translate(computeContentLeft(layout), getPaddingTop());
 
         // Draw the star column.
-        for (int i = 0; i < rowCount; i++) {
-            canvas.save();
-            int starNumber = rowCount - i;
+        layout.drawStarColumn(canvas, starDrawable);
 
-            // Move to the position of the next row in the vertical direction.
-            if (ViewUtils.isLayoutRtl(this)) {
-                canvas.translate(0, (starSize + rowMargin) * i);
-            } else {
-                canvas.translate(i * (starSize + starMargin), (starSize + rowMargin) * i);
-            }
+        // Draw the track of the percentage bar, that is the bottom layer.
+        paint.setColor(percentageBarTrackColor);
+        layout.drawBarTracks(canvas, paint);
 
-            // Draw a row of stars.
-            for (int j = 1; j <= starNumber; j++) {
-                starDrawable.draw(canvas);
+        canvas.restore();
+    }
 
-                if (j < starNumber) {
-                    canvas.translate(starSize + starMargin, 0);
-                } else {
-                    canvas.translate(starSize, 0);
-                }
-            }
-            canvas.restore();
+    private StatisticsLayout getStatisticsLayout() {
+        boolean layoutRtl = ViewUtils.isLayoutRtl(this);
+        if (layout == null || layout.layoutRtl != layoutRtl) {
+            layout = new StatisticsLayout(rowCount, starSize, starMargin, rowMargin,
+                    columnMargin, percentageBarWidth, percentageBarHeight,
+                    percentageBarCornerRounded, percentageBarCornerRadius,
+                    digitalColumnDisabled, computeDigitalColumnWidth(), stableTextHeight,
+                    stableTextCenterY, layoutRtl);
+            textPaint.setTextAlign(layoutRtl ? Paint.Align.RIGHT : Paint.Align.LEFT);
+            staticLayerDirty = true;
         }
-        canvas.restore();
+        return layout;
+    }
 
-        canvas.save();
-        canvas.translate(0, starColumnTop);
+    /**
+     * Drops the layout, it is rebuilt with the current geometry by the next measure or draw.
+     */
+    private void invalidateLayout() {
+        layout = null;
+        staticLayerDirty = true;
+        requestLayout();
+        invalidate();
+    }
 
-        // Draw the percentage bar.
-        for (int i = 1; i <= rowCount; i++) {
-            float centerY = (i * starSize) - starSize / 2f + (i - 1) * rowMargin;
-            float top = centerY - percentageBarHeight / 2f;
-            float bottom = centerY + percentageBarHeight / 2f;
+    private void invalidateConfiguration() {
+        configuration = new Object();
+        invalidateLayout();
+    }
 
-            // Draw the track, that is the bottom layer.
-            paint.setColor(percentageBarTrackColor);
-            canvas.drawRoundRect(barColumnStart, top, barColumnEnd, bottom,
-                    percentageBarCornerRadius, percentageBarCornerRadius, paint);
-            // Draw the top layer.
-            paint.setColor(percentageBarColor);
+    private float computeContentLeft(StatisticsLayout layout) {
+        // The content sticks to the start edge when the view is larger than it.
+        return layout.layoutRtl ? getWidth() - getPaddingRight() - layout.width
+                : getPaddingLeft();
+    }
 
-            canvas.save();
-            canvas.clipRect(barColumnStart, top,
-                    barColumnStart + percentageBarWidth * data[i - 1] * topLayerBarSign, bottom);
-            canvas.drawRoundRect(barColumnStart, top, barColumnEnd, bottom,
-                    percentageBarCornerRadius, percentageBarCornerRadius, paint);
-            canvas.restore();
+    private void releaseStaticLayer() {
+        if (staticLayer != null) {
+            staticLayer.recycle();
+            staticLayer = null;
         }
+        if (staticLayerNode != null) {
+            staticLayerNode.discard();
+            staticLayerNode = null;
+        }
+        staticLayerDirty = true;
+    }
 
-        // Draw digital column texts.
-        if (!digitalColumnDisabled && (data.length > 0)) {
-            for (int i = 1; i <= rowCount; i++) {
-                if (dataText[i - 1] == null) {
-                    continue;
-                }
-                float centerY;
-                float exactCenterY;
+    private void invalidateStaticLayer() {
+        staticLayerDirty = true;
+        invalidate();
+    }
 
-                textBounds.setEmpty();
+    private void measureDataTexts() {
+        for (int i = 0; i < dataText.length; i++) {
+            measureDataText(i);
+        }
+    }
 
-                textPaint.getTextBounds(dataText[i - 1], 0, dataText[i - 1].length(), textBounds);
-                centerY = (i * starSize) - starSize / 2f + (i - 1) * rowMargin;
-                exactCenterY = textBounds.exactCenterY();
+    private void measureDataText(int row) {
+        if (dataText[row] == null) {
+            return;
+        }
+        textBounds.setEmpty();
+        textPaint.getTextBounds(dataText[row], 0, dataTextLength[row], textBounds);
+        dataTextWidth[row] = textBounds.width();
+    }
 
-                canvas.drawText(dataText[i - 1], digitalColumnStart, centerY - exactCenterY,
-                        textPaint);
+    /**
+     * Labels are measured against the widest label of a normalized value, so the column keeps
+     * its width while the data changes. Only values that need more room widen it.
+     */
+    private float computeDigitalColumnWidth() {
+        float width = stableTextWidth;
+        for (int i = 0; i < dataText.length; i++) {
+            if (dataText[i] != null) {
+                width = Math.max(width, dataTextWidth[i]);
             }
         }
-        canvas.restore();
-
-        canvas.restore();
+        return width;
     }
 
-    private float[] parseStatisticsData() {
-        if (statisticsDataText != null) {
-            Matcher matcher = DATA_PATTERN.matcher(statisticsDataText);
-            if (!matcher.matches()) {
-                throw new IllegalArgumentException("The statistics data text must match the pattern: "
-                        + "a, b, c, d, e");
-            }
-            statisticsDataText = statisticsDataText.replace("\\s+", "");
-            String[] numberText = statisticsDataText.split(",");
-            float[] resultData = new float[numberText.length];
-            for (int i = 0; i < numberText.length; i++) {
-                resultData[i] = Float.parseFloat(numberText[i]);
-            }
+    private void allocateData(int rowCount) {
+        data = new float[rowCount];
+        dataText = new char[rowCount][];
+        dataTextLength = new int[rowCount];
+        dataTextWidth = new float[rowCount];
+        barValues = new float[rowCount];
+        barAnimationFrom = new float[rowCount];
+        dataShared = false;
+    }
 
-            return resultData;
+    private void unshareData() {
+        data = data.clone();
+        char[][] text = new char[dataText.length][];
+        for (int i = 0; i < text.length; i++) {
+            text[i] = (dataText[i] != null) ? dataText[i].clone() : null;
         }
-        return null;
+        dataText = text;
+        dataTextLength = dataTextLength.clone();
+        dataTextWidth = dataTextWidth.clone();
+        barValues = barValues.clone();
+        dataShared = false;
     }
 
     private void createStarDrawable() {
         if (starDrawableFromUser != null) {
             starDrawable = starDrawableFromUser.getConstantState().newDrawable();
         } else {
-            starDrawable = new StarDrawable(starSize);
-            ((StarDrawable) starDrawable).applyAppearance(getContext(), starAppearanceRes);
+            starDrawable = StarDrawable.StarAppearance.obtain(getContext(), starAppearanceRes)
+                    .getState(starSize).newDrawable();
         }
         starDrawable.setCallback(this);
         starDrawable.setBounds(0, 0, starSize, starSize);
+        if (RatingBarMetrics.enabled) {
+            RatingBarMetrics.reportDrawableCreated(starDrawable);
+        }
+        staticLayerDirty = true;
     }
 
     private void applyStarDrawableTint() {
         starDrawable.setTintList(starTintList);
+        staticLayerDirty = true;
     }
 
     private void readTextAppearance() {
-        @SuppressLint("CustomViewStyleable") TypedArray a = getContext()
-                .obtainStyledAttributes(digitalColumnTextAppearance,
-                        androidx.appcompat.R.styleable.TextAppearance);
-
-        digitalTextAppearance = new TextAppearance();
-
-        digitalTextAppearance.textSize = a.getDimensionPixelSize(
-                androidx.appcompat.R.styleable.TextAppearance_android_textSize, 0);
-        digitalTextAppearance.textColor = a.getColorStateList(
-                androidx.appcompat.R.styleable.TextAppearance_android_textColor).getDefaultColor();
-        digitalTextAppearance.textStyle = a.getInt(
-                androidx.appcompat.R.styleable.TextAppearance_android_textStyle, -1);
-        digitalTextAppearance.typefaceIndex = a.getInt(
-                androidx.appcompat.R.styleable.TextAppearance_android_typeface, -1);
-
-        a.recycle();
+        digitalTextAppearance = TextAppearance.resolve(getContext(), digitalColumnTextAppearance);
     }
 
     private void applyTextAppearance() {
-        if (digitalTextAppearance.textSize != textPaint.getTextSize()) {
-            textPaint.setTextSize(digitalTextAppearance.textSize);
-        }
-        if (digitalTextAppearance.textColor != textPaint.getColor()) {
-            textPaint.setColor(digitalTextAppearance.textColor);
-        }
-
-        Typeface typeface;
-        switch (digitalTextAppearance.typefaceIndex) {
-            case SANS:
-                typeface = Typeface.SANS_SERIF;
-                break;
-            case SERIF:
-                typeface = Typeface.SERIF;
-                break;
-            case MONOSPACE:
-                typeface = Typeface.MONOSPACE;
-                break;
-            case DEFAULT_TYPEFACE:
-            default:
-                typeface = null;
-                break;
-        }
-        if (digitalTextAppearance.textStyle > 0) {
-            if (typeface == null) {
-                typeface = Typeface.defaultFromStyle(digitalTextAppearance.textStyle);
-            } else {
-                typeface = Typeface.create(typeface, digitalTextAppearance.textStyle);
-            }
+        digitalTextAppearance.applyTo(textPaint);
 
-            textPaint.setTypeface(typeface);
-            // now compute what (if any) algorithmic styling is needed
-            int typefaceStyle = (typeface != null) ? typeface.getStyle() : 0;
-            int need = digitalTextAppearance.textStyle & ~typefaceStyle;
-            textPaint.setFakeBoldText((need & Typeface.BOLD) != 0);
-            textPaint.setTextSkewX((need & Typeface.ITALIC) != 0 ? -0.25f : 0);
-        } else {
-            textPaint.setFakeBoldText(false);
-            textPaint.setTextSkewX(0);
-            textPaint.setTypeface(typeface);
+        textBounds.setEmpty();
+        textPaint.getTextBounds(WIDEST_LABEL, 0, WIDEST_LABEL.length(), textBounds);
+        stableTextWidth = textBounds.width();
+        stableTextHeight = textBounds.height();
+        stableTextCenterY = textBounds.exactCenterY();
+
+        if (dataText != null) {
+            measureDataTexts();
         }
     }
 
@@ -451,6 +491,7 @@ public class StatisticsView extends View {
             starDrawableFromUser = drawable;
             createStarDrawable();
             applyStarDrawableTint();
+            invalidate();
         }
     }
 
@@ -460,7 +501,13 @@ public class StatisticsView extends View {
 
     public void setStarSize(@Dimension int starSize) {
         this.starSize = starSize;
-        requestLayout();
+        if (starDrawableFromUser == null) {
+            createStarDrawable();
+            applyStarDrawableTint();
+        } else {
+            starDrawable.setBounds(0, 0, starSize, starSize);
+        }
+        invalidateConfiguration();
     }
 
     public int getStarMargin() {
@@ -469,7 +516,7 @@ public class StatisticsView extends View {
 
     public void setStarMargin(int starMargin) {
         this.starMargin = starMargin;
-        requestLayout();
+        invalidateConfiguration();
     }
 
     public ColorStateList getStarTintList() {
@@ -490,7 +537,10 @@ public class StatisticsView extends View {
 
     public void setRowCount(int rowCount) {
         this.rowCount = rowCount;
-        requestLayout();
+        invalidateConfiguration();
+        if (histogram != null) {
+            notifyHistogramChanged();
+        }
     }
 
     public int getRowMargin() {
@@ -499,7 +549,7 @@ public class StatisticsView extends View {
 
     public void setRowMargin(int rowMargin) {
         this.rowMargin = rowMargin;
-        requestLayout();
+        invalidateConfiguration();
     }
 
     public int getColumnMargin() {
@@ -508,7 +558,7 @@ public class StatisticsView extends View {
 
     public void setColumnMargin(int columnMargin) {
         this.columnMargin = columnMargin;
-        requestLayout();
+        invalidateConfiguration();
     }
 
     public boolean isDigitalColumnDisabled() {
@@ -517,7 +567,7 @@ public class StatisticsView extends View {
 
     public void setDigitalColumnDisabled(boolean digitalColumnDisabled) {
         this.digitalColumnDisabled = digitalColumnDisabled;
-        requestLayout();
+        invalidateConfiguration();
     }
 
     public int getDigitalColumnTextAppearance() {
@@ -525,7 +575,12 @@ public class StatisticsView extends View {
     }
 
     public void setDigitalColumnTextAppearance(int digitalColumnTextAppearance) {
-        this.digitalColumnTextAppearance = digitalColumnTextAppearance;
+        if (this.digitalColumnTextAppearance != digitalColumnTextAppearance) {
+            this.digitalColumnTextAppearance = digitalColumnTextAppearance;
+            readTextAppearance();
+            applyTextAppearance();
+            invalidateConfiguration();
+        }
     }
 
     public int getPercentageBarColor() {
@@ -534,6 +589,7 @@ public class StatisticsView extends View {
 
     public void setPercentageBarColor(int percentageBarColor) {
         this.percentageBarColor = percentageBarColor;
+        invalidate();
     }
 
     public int getPercentageBarTrackColor() {
@@ -542,22 +598,25 @@ public class StatisticsView extends View {
 
     public void setPercentageBarTrackColor(int percentageBarTrackColor) {
         this.percentageBarTrackColor = percentageBarTrackColor;
+        invalidateStaticLayer();
     }
 
     public float getPercentageBarWidth() {
-        return percentageBarWidth;
+        return getStatisticsLayout().barWidth;
     }
 
     public void setPercentageBarWidth(int percentageBarWidth) {
         this.percentageBarWidth = percentageBarWidth;
+        invalidateConfiguration();
     }
 
     public float getPercentageBarHeight() {
-        return percentageBarHeight;
+        return getStatisticsLayout().barHeight;
     }
 
     public void setPercentageBarHeight(int percentageBarHeight) {
         this.percentageBarHeight = percentageBarHeight;
+        invalidateConfiguration();
     }
 
     public boolean isPercentageBarCornerRounded() {
@@ -566,28 +625,211 @@ public class StatisticsView extends View {
 
     public void setPercentageBarCornerRounded(boolean percentageBarCornerRounded) {
         this.percentageBarCornerRounded = percentageBarCornerRounded;
+        invalidateConfiguration();
     }
 
     public float getPercentageBarCornerRadius() {
-        return percentageBarCornerRadius;
+        return getStatisticsLayout().barCornerRadius;
     }
 
     public void setPercentageBarCornerRadius(int percentageBarCornerRadius) {
         this.percentageBarCornerRadius = percentageBarCornerRadius;
+        invalidateConfiguration();
     }
 
     public void feed(float[] data) {
-        int length;
+        feed(data, false);
+    }
 
-        this.data = new float[rowCount];
-        this.dataText = new String[rowCount];
+    /**
+     * Feeds the data, animating the bars from their current values if {@code animate} is true
+     * and the view is laid out. The labels show the new values at once. All the animating views
+     * share one frame callback.
+     */
+    public void feed(float[] data, boolean animate) {
+        boolean reallocated = false;
 
-        length = Math.min(this.data.length, data.length);
-        System.arraycopy(data, 0, this.data, 0, length);
-        for (int i = 0; i < this.data.length; i++) {
-            dataText[i] = String.format(Locale.US, "%.1f%%", this.data[i] * 100);
+        if (dataShared) {
+            unshareData();
+        }
+        if (this.data.length != rowCount) {
+            cancelBarAnimation();
+            allocateData(rowCount);
+            reallocated = true;
+        }
+        animate &= !reallocated && getWidth() != 0;
+        if (animate) {
+            System.arraycopy(barValues, 0, barAnimationFrom, 0, rowCount);
+        }
+
+        boolean anyChanged = false;
+        for (int i = 0; i < rowCount; i++) {
+            float value = (i < data.length) ? data[i] : 0;
+            boolean changed = reallocated || value != this.data[i] || dataText[i] == null;
+
+            this.data[i] = value;
+            if (dataText[i] == null) {
+                dataText[i] = new char[PercentageFormatter.MAX_LENGTH];
+            }
+            if (changed) {
+                dataTextLength[i] = PercentageFormatter.format(value, dataText[i]);
+                measureDataText(i);
+                anyChanged = true;
+            }
+        }
+        if (anyChanged) {
+            // Only the bars and labels are repainted, the static layer is kept.
+            invalidate();
+        }
+
+        if (animate) {
+            RatingAnimator.getInstance().start(barAnimation);
+        } else {
+            RatingAnimator.getInstance().cancel(barAnimation);
+            System.arraycopy(this.data, 0, barValues, 0, rowCount);
+        }
+
+        // The geometry only changes when a label no longer fits the digital column.
+        if (!digitalColumnDisabled && layout != null
+                && computeDigitalColumnWidth() != layout.digitalColumnWidth) {
+            invalidateLayout();
+        } else if (reallocated) {
+            requestLayout();
+        }
+    }
+
+    /**
+     * Formats, measures and lays out the data on the executor, the main thread then only has to
+     * {@link #feed(PreparedStatistics) feed} the result. The configuration of the view is read
+     * at once, must be called on the main thread.
+     *
+     * @param listener notified on the main thread once the data is prepared, may be null if the
+     *                 returned future is used instead.
+     */
+    @NonNull
+    public Future<PreparedStatistics> prepare(@NonNull float[] data, @NonNull Executor executor,
+                                              @Nullable final OnPreparedListener listener) {
+        FutureTask<PreparedStatistics> task = new FutureTask<PreparedStatistics>(
+                new PrepareTask(this, data)) {
+            @Override
+            protected void done() {
+                if (listener == null || isCancelled()) {
+                    return;
+                }
+                final FutureTask<PreparedStatistics> task = this;
+                MainThreadHandler.INSTANCE.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            listener.onPrepared(task.get());
+                        } catch (InterruptedException | ExecutionException e) {
+                            throw new IllegalStateException("Failed to prepare the data", e);
+                        }
+                    }
+                });
+            }
+        };
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Shows data prepared by {@link #prepare(float[], Executor, OnPreparedListener)}. Nothing
+     * is formatted or measured, the labels, the widths and the layout of the prepared data are
+     * used as they are. If the geometry or the text appearance changed since the preparation,
+     * the data is fed like {@link #feed(float[])} does.
+     */
+    public void feed(@NonNull PreparedStatistics prepared) {
+        if (prepared.configuration != configuration || prepared.data.length != rowCount
+                || prepared.layout.layoutRtl != ViewUtils.isLayoutRtl(this)) {
+            feed(prepared.data);
+            return;
+        }
+        cancelBarAnimation();
+
+        data = prepared.data;
+        dataText = prepared.dataText;
+        dataTextLength = prepared.dataTextLength;
+        dataTextWidth = prepared.dataTextWidth;
+        barValues = prepared.data;
+        dataShared = true;
+
+        if (layout == null || layout.digitalColumnWidth != prepared.layout.digitalColumnWidth) {
+            boolean resized = (layout == null) || layout.width != prepared.layout.width
+                    || layout.height != prepared.layout.height;
+            layout = prepared.layout;
+            staticLayerDirty = true;
+            if (resized) {
+                requestLayout();
+            }
+        }
+        invalidate();
+    }
+
+    private void cancelBarAnimation() {
+        if (barAnimation.running) {
+            RatingAnimator.getInstance().cancel(barAnimation);
+            System.arraycopy(data, 0, barValues, 0, barValues.length);
+        }
+    }
+
+    /**
+     * Returns the histogram backing {@link #addRating(int)} and the related methods. When the
+     * row count changes the histogram is replaced by one of the new row count, with the counts
+     * carried over, except the ones of star counts the new row count doesn't show. Call
+     * {@link #notifyHistogramChanged()} after modifying it directly.
+     */
+    @NonNull
+    public RatingHistogram getHistogram() {
+        if (histogram == null) {
+            histogram = new RatingHistogram(rowCount);
+            histogramFractions = new float[rowCount];
+        } else if (histogram.getRowCount() != rowCount) {
+            histogram = histogram.withRowCount(rowCount);
+            histogramFractions = new float[rowCount];
+        }
+        return histogram;
+    }
+
+    private void applyHistogram() {
+        if (histogram != null) {
+            getHistogram().fillFractions(histogramFractions);
+            feed(histogramFractions);
+        }
+    }
+
+    public void addRating(int stars) {
+        getHistogram().addRating(stars);
+        notifyHistogramChanged();
+    }
+
+    public void removeRating(int stars) {
+        getHistogram().removeRating(stars);
+        notifyHistogramChanged();
+    }
+
+    /**
+     * Adds ratings in bulk, {@code counts[i]} is the number of ratings of {@code i + 1} stars.
+     */
+    public void addRatings(@NonNull int[] counts) {
+        getHistogram().addRatings(counts);
+        notifyHistogramChanged();
+    }
+
+    public void merge(@NonNull RatingHistogram other) {
+        getHistogram().merge(other);
+        notifyHistogramChanged();
+    }
+
+    /**
+     * Schedules the histogram to be shown on the next frame. Any number of calls made before that
+     * frame result in a single update of the view.
+     */
+    public void notifyHistogramChanged() {
+        if (!histogramFramePending) {
+            histogramFramePending = true;
+            Choreographer.getInstance().postFrameCallback(histogramFrameCallback);
         }
-        requestLayout();
     }
 
     @Nullable
@@ -612,6 +854,87 @@ public class StatisticsView extends View {
         feed(savedState.data);
     }
 
+    public interface OnPreparedListener {
+        void onPrepared(@NonNull PreparedStatistics prepared);
+    }
+
+    private static final class MainThreadHandler {
+        static final Handler INSTANCE = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * Copies the configuration the labels and the layout depend on, so it can run on any thread
+     * while the view keeps changing.
+     */
+    private static final class PrepareTask implements Callable<PreparedStatistics> {
+        private final Object configuration;
+        private final float[] data;
+        private final Paint textPaint;
+        private final int rowCount;
+        private final int starSize;
+        private final int starMargin;
+        private final int rowMargin;
+        private final int columnMargin;
+        private final float percentageBarWidth;
+        private final float percentageBarHeight;
+        private final boolean percentageBarCornerRounded;
+        private final float percentageBarCornerRadius;
+        private final boolean digitalColumnDisabled;
+        private final float stableTextWidth;
+        private final float stableTextHeight;
+        private final float stableTextCenterY;
+        private final boolean layoutRtl;
+
+        PrepareTask(StatisticsView view, float[] data) {
+            configuration = view.configuration;
+            this.data = data.clone();
+            textPaint = new Paint(view.textPaint);
+            rowCount = view.rowCount;
+            starSize = view.starSize;
+            starMargin = view.starMargin;
+            rowMargin = view.rowMargin;
+            columnMargin = view.columnMargin;
+            percentageBarWidth = view.percentageBarWidth;
+            percentageBarHeight = view.percentageBarHeight;
+            percentageBarCornerRounded = view.percentageBarCornerRounded;
+            percentageBarCornerRadius = view.percentageBarCornerRadius;
+            digitalColumnDisabled = view.digitalColumnDisabled;
+            stableTextWidth = view.stableTextWidth;
+            stableTextHeight = view.stableTextHeight;
+            stableTextCenterY = view.stableTextCenterY;
+            layoutRtl = ViewUtils.isLayoutRtl(view);
+        }
+
+        @WorkerThread
+        @Override
+        public PreparedStatistics call() {
+            float[] values = new float[rowCount];
+            char[][] dataText = new char[rowCount][];
+            int[] dataTextLength = new int[rowCount];
+            float[] dataTextWidth = new float[rowCount];
+            Rect textBounds = new Rect();
+            float digitalColumnWidth = stableTextWidth;
+
+            for (int i = 0; i < rowCount; i++) {
+                values[i] = (i < data.length) ? data[i] : 0;
+                dataText[i] = new char[PercentageFormatter.MAX_LENGTH];
+                dataTextLength[i] = PercentageFormatter.format(values[i], dataText[i]);
+                textBounds.setEmpty();
+                textPaint.getTextBounds(dataText[i], 0, dataTextLength[i], textBounds);
+                dataTextWidth[i] = textBounds.width();
+                digitalColumnWidth = Math.max(digitalColumnWidth, dataTextWidth[i]);
+            }
+
+            StatisticsLayout layout = new StatisticsLayout(rowCount, starSize, starMargin,
+                    rowMargin, columnMargin, percentageBarWidth, percentageBarHeight,
+                    percentageBarCornerRounded, percentageBarCornerRadius,
+                    digitalColumnDisabled, digitalColumnWidth, stableTextHeight,
+                    stableTextCenterY, layoutRtl);
+            return new PreparedStatistics(configuration, values, dataText, dataTextLength,
+                    dataTextWidth, layout);
+        }
+    }
+
     static class SavedState extends AbsSavedState {
         int rowCount;
         float[] data;
@@ -653,10 +976,97 @@ public class StatisticsView extends View {
                 };
     }
 
-    private static class TextAppearance {
+    static final class TextAppearance {
         int textSize;
         int textColor;
         @XMLTypefaceAttr int textStyle;
         int typefaceIndex;
+
+        static TextAppearance resolve(Context context, @StyleRes int textAppearanceRes) {
+            @SuppressLint("CustomViewStyleable") TypedArray a = context
+                    .obtainStyledAttributes(textAppearanceRes,
+                            androidx.appcompat.R.styleable.TextAppearance);
+
+            TextAppearance appearance = new TextAppearance();
+
+            appearance.textSize = a.getDimensionPixelSize(
+                    androidx.appcompat.R.styleable.TextAppearance_android_textSize, 0);
+            appearance.textColor = a.getColorStateList(
+                    androidx.appcompat.R.styleable.TextAppearance_android_textColor)
+                    .getDefaultColor();
+            appearance.textStyle = a.getInt(
+                    androidx.appcompat.R.styleable.TextAppearance_android_textStyle, -1);
+            appearance.typefaceIndex = a.getInt(
+                    androidx.appcompat.R.styleable.TextAppearance_android_typeface, -1);
+
+            a.recycle();
+            return appearance;
+        }
+
+        void applyTo(Paint paint) {
+            if (textSize != paint.getTextSize()) {
+                paint.setTextSize(textSize);
+            }
+            if (textColor != paint.getColor()) {
+                paint.setColor(textColor);
+            }
+
+            Typeface typeface;
+            switch (typefaceIndex) {
+                case SANS:
+                    typeface = Typeface.SANS_SERIF;
+                    break;
+                case SERIF:
+                    typeface = Typeface.SERIF;
+                    break;
+                case MONOSPACE:
+                    typeface = Typeface.MONOSPACE;
+                    break;
+                case DEFAULT_TYPEFACE:
+                default:
+                    typeface = null;
+                    break;
+            }
+            if (textStyle > 0) {
+                if (typeface == null) {
+                    typeface = Typeface.defaultFromStyle(textStyle);
+                } else {
+                    typeface = Typeface.create(typeface, textStyle);
+                }
+
+                paint.setTypeface(typeface);
+                // now compute what (if any) algorithmic styling is needed
+                int typefaceStyle = (typeface != null) ? typeface.getStyle() : 0;
+                int need = textStyle & ~typefaceStyle;
+                paint.setFakeBoldText((need & Typeface.BOLD) != 0);
+                paint.setTextSkewX((need & Typeface.ITALIC) != 0 ? -0.25f : 0);
+            } else {
+                paint.setFakeBoldText(false);
+                paint.setTextSkewX(0);
+                paint.setTypeface(typeface);
+            }
+        }
+    }
+
+    @RequiresApi(Build.VERSION_CODES.Q)
+    private static class StaticLayerNode {
+        private final RenderNode renderNode = new RenderNode("StatisticsViewStaticLayer");
+
+        Canvas beginRecording(int width, int height) {
+            renderNode.setPosition(0, 0, width, height);
+            return renderNode.beginRecording(width, height);
+        }
+
+        void endRecording() {
+            renderNode.endRecording();
+        }
+
+        void draw(Canvas canvas) {
+            canvas.drawRenderNode(renderNode);
+        }
+
+        void discard() {
+            renderNode.discardDisplayList();
+        }
     }
 }
@@ -0,0 +1,66 @@
+package io.github.vejei.ratingbar;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares {@link PercentageFormatter} with the {@code String.format()} call it replaced.
+ */
+public class PercentageFormatterTest {
+    private static final int RANDOM_ITERATIONS = 200000;
+    // Steps through the bit patterns of the floats between 0 and 1.
+    private static final int BITS_STEP = 4099;
+
+    private final char[] buffer = new char[PercentageFormatter.MAX_LENGTH];
+    private final Random random = new Random(20201018L);
+
+    @Test
+    public void formatsSpecialValuesLikeFormatter() {
+        float[] values = {0f, -0f, Float.NaN, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY,
+                Float.MIN_VALUE, -Float.MIN_VALUE, Float.MIN_NORMAL, 1f, -1f, 0.123f};
+        for (float value : values) {
+            assertFormattedLikeFormatter(value);
+        }
+    }
+
+    @Test
+    public void roundsHalfTenthsLikeFormatter() {
+        for (int i = 0; i <= 2000; i++) {
+            assertFormattedLikeFormatter((i + 0.5f) / 1000);
+            assertFormattedLikeFormatter(-(i + 0.5f) / 1000);
+        }
+    }
+
+    @Test
+    public void formatsFractionsLikeFormatter() {
+        int last = Float.floatToIntBits(1f);
+        for (int bits = 0; bits <= last; bits += BITS_STEP) {
+            float value = Float.intBitsToFloat(bits);
+            assertFormattedLikeFormatter(value);
+            assertFormattedLikeFormatter(-value);
+        }
+    }
+
+    @Test
+    public void formatsRandomValuesLikeFormatter() {
+        int checked = 0;
+        while (checked < RANDOM_ITERATIONS) {
+            float value = Float.intBitsToFloat(random.nextInt());
+            // Past 10^12 Formatter rounds the integer digits, see the class doc.
+            if (Math.abs(value) < 1e12f) {
+                assertFormattedLikeFormatter(value);
+                checked++;
+            }
+        }
+    }
+
+    private void assertFormattedLikeFormatter(float fraction) {
+        String expected = String.format(Locale.US, "%.1f%%", fraction * 100);
+        int length = PercentageFormatter.format(fraction, buffer);
+        assertEquals("fraction=" + fraction, expected, new String(buffer, 0, length));
+    }
+}
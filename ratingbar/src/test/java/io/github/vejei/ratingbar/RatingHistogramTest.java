@@ -0,0 +1,46 @@
+package io.github.vejei.ratingbar;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class RatingHistogramTest {
+
+    @Test
+    public void withRowCountCarriesTheCountsOver() {
+        RatingHistogram histogram = new RatingHistogram(5);
+        histogram.addRatings(new int[] {1, 2, 3, 4, 5});
+
+        RatingHistogram grown = histogram.withRowCount(7);
+        assertEquals(7, grown.getRowCount());
+        for (int stars = 1; stars <= 5; stars++) {
+            assertEquals(stars, grown.getCount(stars));
+        }
+        assertEquals(0, grown.getCount(6));
+        assertEquals(0, grown.getCount(7));
+        assertEquals(15, grown.getTotal());
+    }
+
+    @Test
+    public void withRowCountDropsTheStarsNoLongerShown() {
+        RatingHistogram histogram = new RatingHistogram(5);
+        histogram.addRatings(new int[] {1, 2, 3, 4, 5});
+
+        RatingHistogram shrunk = histogram.withRowCount(3);
+        assertEquals(3, shrunk.getRowCount());
+        for (int stars = 1; stars <= 3; stars++) {
+            assertEquals(stars, shrunk.getCount(stars));
+        }
+        assertEquals(6, shrunk.getTotal());
+    }
+
+    @Test
+    public void withRowCountLeavesTheSourceUnchanged() {
+        RatingHistogram histogram = new RatingHistogram(5);
+        histogram.addRating(5);
+
+        histogram.withRowCount(3).addRating(1);
+        assertEquals(1, histogram.getTotal());
+        assertEquals(1, histogram.getCount(5));
+    }
+}
@@ -0,0 +1,177 @@
+package io.github.vejei.ratingbar;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the closed-form mappings of {@link RatingSteps} against the loop and the formulas
+ * {@link RatingBar} used before, on random configurations and touch positions.
+ *
+ * <p>One difference is intended: the loop subtracted one step at a time and accumulated float
+ * rounding, so for a distance within that rounding of the start of a step it could count one
+ * step more or less. The closed form places the boundary exactly. Anywhere else the step
+ * counts must be equal.</p>
+ */
+public class RatingStepsTest {
+    private static final int ITERATIONS = 200000;
+    private static final float[] STEP_SIZES = {0.01f, 0.05f, 0.1f, 0.2f, 0.25f, 0.3f, 0.5f, 1f};
+
+    private final Random random = new Random(20201018L);
+
+    @Test
+    public void stepsForDistanceMatchesTheLoop() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            int starCount = 1 + random.nextInt(20);
+            int starSize = 1 + random.nextInt(96);
+            int starMargin = random.nextInt(16);
+            int paddingLeft = random.nextInt(24);
+            int paddingRight = random.nextInt(24);
+            float stepSize = STEP_SIZES[random.nextInt(STEP_SIZES.length)];
+            boolean layoutRtl = random.nextBoolean();
+
+            int availableWidth = starSize * starCount + starMargin * (starCount - 1);
+            int width = availableWidth + paddingLeft + paddingRight;
+            int x = random.nextInt(width + 1);
+
+            float distance = distanceFromStart(x, width, paddingLeft, paddingRight, layoutRtl);
+            float totalSteps = starCount / stepSize;
+            float stepDimen = starSize * starCount / totalSteps;
+            float stepsPerStar = 1.0f / stepSize;
+
+            int expected = loopStepsForDistance(distance, stepDimen, stepsPerStar, starMargin);
+            int actual = RatingSteps.stepsForDistance(distance, stepDimen, stepsPerStar,
+                    starMargin);
+            if (actual != expected) {
+                String message = "starCount=" + starCount + " starSize=" + starSize
+                        + " starMargin=" + starMargin + " stepSize=" + stepSize
+                        + " rtl=" + layoutRtl + " x=" + x + " loop=" + expected
+                        + " closedForm=" + actual;
+                assertEquals(message, 1, Math.abs(actual - expected));
+                double boundary = stepStart(Math.min(actual, expected), stepDimen, stepsPerStar,
+                        starMargin);
+                assertTrue(message, Math.abs(distance - boundary) <= roundingTolerance(
+                        distance, stepDimen));
+            }
+        }
+    }
+
+    @Test
+    public void stepsForRatingMatchesTheFormula() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            int starCount = 1 + random.nextInt(20);
+            float stepSize = STEP_SIZES[random.nextInt(STEP_SIZES.length)];
+            float rating = random.nextFloat() * starCount;
+            float stepsPerStar = 1.0f / stepSize;
+
+            assertEquals("rating=" + rating + " stepSize=" + stepSize,
+                    (int) Math.ceil(rating * stepsPerStar),
+                    RatingSteps.stepsForRating(rating, stepsPerStar));
+        }
+    }
+
+    @Test
+    public void distanceForStepsMatchesTheFormula() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            int starCount = 1 + random.nextInt(20);
+            int starSize = 1 + random.nextInt(96);
+            int starMargin = random.nextInt(16);
+            float stepSize = STEP_SIZES[random.nextInt(STEP_SIZES.length)];
+            float stepsPerStar = 1.0f / stepSize;
+            int steps = random.nextInt((int) Math.ceil(starCount * stepsPerStar) + 1);
+
+            float expected = 0;
+            if (steps > 0) {
+                float stepsStarCount = 1f * steps / stepsPerStar;
+                int marginCount = (int) (Math.ceil(stepsStarCount) - 1);
+                expected = stepsStarCount * starSize + marginCount * starMargin;
+            }
+            assertEquals("steps=" + steps + " stepSize=" + stepSize, expected,
+                    RatingSteps.distanceForSteps(steps, stepsPerStar, starSize, starMargin), 0f);
+        }
+    }
+
+    @Test
+    public void ratingRoundTripsThroughSteps() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            float stepSize = STEP_SIZES[random.nextInt(STEP_SIZES.length)];
+            float stepsPerStar = 1.0f / stepSize;
+            int steps = random.nextInt(2000);
+
+            float rating = RatingSteps.ratingForSteps(steps, stepsPerStar);
+            int roundTrip = RatingSteps.stepsForRating(rating, stepsPerStar);
+            // ceil() may push a rating stored just above its step to the next one.
+            assertTrue("steps=" + steps + " stepSize=" + stepSize,
+                    roundTrip == steps || roundTrip == steps + 1);
+        }
+    }
+
+    /**
+     * The distance from the start edge the way {@code RatingBar.jumpToPosition()} computes it.
+     */
+    private static float distanceFromStart(int x, int width, int paddingLeft, int paddingRight,
+                                           boolean layoutRtl) {
+        int availableWidth = width - paddingLeft - paddingRight;
+        float offset;
+        if (layoutRtl) {
+            if (x > (width - paddingRight)) {
+                offset = 0.0f;
+            } else if (x < paddingLeft) {
+                offset = 1.0f;
+            } else {
+                offset = (availableWidth - x + paddingLeft) / (float) availableWidth;
+            }
+        } else {
+            if (x < paddingLeft) {
+                offset = 0f;
+            } else if (x > width - paddingRight) {
+                offset = 1f;
+            } else {
+                offset = (x - paddingLeft) / (float) availableWidth;
+            }
+        }
+        return offset * availableWidth;
+    }
+
+    /**
+     * The loop {@code RatingBar.jumpToPosition()} used before the closed form.
+     */
+    private static int loopStepsForDistance(float distance, float stepDimen, float stepsPerStar,
+                                            int starMargin) {
+        float remaining = distance;
+        int cutCount = 0;
+        int stepCount = 0;
+
+        while (remaining > 0) {
+            if (cutCount < stepsPerStar) {
+                remaining -= stepDimen;
+                cutCount++;
+                stepCount++;
+            } else {
+                cutCount = 0;
+                remaining -= starMargin;
+            }
+        }
+        return stepCount;
+    }
+
+    /**
+     * Returns the exact distance at which the step starts, step 0 starting at 0.
+     */
+    private static double stepStart(int step, float stepDimen, float stepsPerStar,
+                                    int starMargin) {
+        int stepsInStar = (int) Math.ceil(stepsPerStar);
+        int star = step / stepsInStar;
+        return star * ((double) stepsInStar * stepDimen + starMargin)
+                + (double) (step % stepsInStar) * stepDimen;
+    }
+
+    private static double roundingTolerance(float distance, float stepDimen) {
+        // The loop makes up to one subtraction per step, each rounding by half an ulp.
+        double subtractions = Math.ceil(distance / stepDimen) * 2 + 2;
+        return subtractions * Math.ulp(Math.max(distance, stepDimen));
+    }
+}
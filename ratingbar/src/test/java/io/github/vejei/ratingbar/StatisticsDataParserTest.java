@@ -0,0 +1,87 @@
+package io.github.vejei.ratingbar;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StatisticsDataParserTest {
+    private static final float DELTA = 1e-6f;
+
+    @Test
+    public void parsesFractions() {
+        assertParsed(new float[] {0.5f, 0.3f, 0.1f, 0.1f, 0f}, "0.5,0.3,0.1,0.1,0");
+        assertParsed(new float[] {0.5f, 0.25f}, ".5, .25");
+        assertParsed(new float[] {1f}, "1.");
+    }
+
+    @Test
+    public void allowsWhitespaceAroundValues() {
+        assertParsed(new float[] {0.5f, 0.3f, 0.2f}, "  0.5 ,\t0.3\n,  0.2  ");
+    }
+
+    @Test
+    public void ignoresTrailingCommas() {
+        assertParsed(new float[] {0.5f, 0.3f}, "0.5, 0.3,");
+        assertParsed(new float[] {0.5f, 0.3f}, "0.5, 0.3, ");
+        assertParsed(new float[] {0.5f, 0.3f}, "0.5, 0.3, ,, ");
+    }
+
+    @Test
+    public void parsesPercentages() {
+        assertParsed(new float[] {0.25f, 0.125f, 1f}, "25%, 12.5%, 100%");
+    }
+
+    @Test
+    public void normalizesIntegerCounts() {
+        assertParsed(new float[] {0.6f, 0.3f, 0.1f}, "120, 60, 20");
+    }
+
+    @Test
+    public void keepsZeroCountsAsZero() {
+        assertParsed(new float[] {0f, 0f, 0f}, "0, 0, 0");
+    }
+
+    @Test
+    public void doesNotNormalizeWhenAnyValueIsNotACount() {
+        assertParsed(new float[] {2f, 0.5f}, "2, 0.5");
+        assertParsed(new float[] {2f, 0.5f}, "2, 50%");
+    }
+
+    @Test
+    public void keepsTheMagnitudeOfTooManyDigits() {
+        float[] large = StatisticsDataParser.parse("1234567890123456789012345.5");
+        assertEquals(1.2345679e24f, large[0], 1e18f);
+        assertParsed(new float[] {0.12345679f}, "0.1234567890123456789012345");
+        assertParsed(new float[] {0.5f, 0.5f},
+                "1000000000000000000000, 1000000000000000000000");
+    }
+
+    @Test
+    public void reportsTheIndexOfTheFirstInvalidCharacter() {
+        assertInvalidAt("", 0);
+        assertInvalidAt(",", 0);
+        assertInvalidAt("0.5, x", 5);
+        assertInvalidAt("0.5 0.3", 4);
+        assertInvalidAt("0.5,,0.3", 4);
+        assertInvalidAt("1..2", 2);
+        assertInvalidAt("-1", 0);
+        assertInvalidAt("%", 0);
+        assertInvalidAt("25%%", 3);
+    }
+
+    private static void assertParsed(float[] expected, String text) {
+        assertArrayEquals(text, expected, StatisticsDataParser.parse(text), DELTA);
+    }
+
+    private static void assertInvalidAt(String text, int index) {
+        try {
+            StatisticsDataParser.parse(text);
+            fail("Expected \"" + text + "\" to be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().endsWith("(at index " + index + ")"));
+        }
+    }
+}